@@ -0,0 +1,62 @@
+package benchmarks;
+
+import model.WeatherData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.TtlLruCache;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TtlLruCache} lookups from 8 threads at once, as parallel comparisons hit the shared API
+ * cache: all hits, and a key space four times the capacity so lookups keep loading and evicting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class CacheContentionBenchmark {
+
+    private static final int CAPACITY = 256;
+
+    private TtlLruCache<String, WeatherData> cache;
+    private String[] keys;
+    private WeatherData reading;
+
+    @Setup
+    public void fill() {
+        reading = WeatherData.fromJson(Fixtures.bytes("/fixtures/weather/jakarta.json"));
+        cache = new TtlLruCache<>(CAPACITY, Duration.ofHours(1));
+        keys = new String[CAPACITY * 4];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "city-" + i + "|metric";
+        }
+        for (int i = 0; i < CAPACITY; i++) {
+            cache.put(keys[i], reading);
+        }
+    }
+
+    @Benchmark
+    public WeatherData hit() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(CAPACITY)], key -> reading);
+    }
+
+    @Benchmark
+    public WeatherData churn() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(keys.length)], key -> reading);
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.ConditionClassifier;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Condition classification over the candidate texts a condition lookup has to sift through. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionClassificationBenchmark {
+
+    private static final String[] API_CONDITIONS = {"Clouds", "scattered clouds", "Rain", "Clear", "Mist"};
+
+    private final ConditionClassifier classifier = ConditionClassifier.DEFAULT;
+    private List<String> candidates;
+
+    @Setup
+    public void load() {
+        candidates = Fixtures.lines("/fixtures/condition-candidates.txt");
+    }
+
+    // One pass over the fixture candidates, as when picking the condition element on the page
+    @Benchmark
+    public void classifyCandidates(Blackhole blackhole) {
+        for (String candidate : candidates) {
+            blackhole.consume(classifier.classify(candidate));
+        }
+    }
+
+    // Every API condition against every candidate, as the comparison's relatedness check does
+    @Benchmark
+    public void relateToApiConditions(Blackhole blackhole) {
+        for (String api : API_CONDITIONS) {
+            for (String candidate : candidates) {
+                blackhole.consume(classifier.areRelated(api, candidate));
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Synthetic pages and responses the benchmarks run against, so results do not depend on the network.
+ * They are generated to look like openweathermap.org output, not recorded from it.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static byte[] bytes(String resource) {
+        try (InputStream in = Fixtures.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Missing fixture: " + resource);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read fixture " + resource, e);
+        }
+    }
+
+    static String text(String resource) {
+        return new String(bytes(resource), StandardCharsets.UTF_8);
+    }
+
+    // One entry per line; blank lines and '#' comments are skipped
+    static List<String> lines(String resource) {
+        return Arrays.stream(text(resource).split("\n"))
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.TemperatureScanner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Temperature parsing of single element texts and of a whole (synthetic) city page source. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemperatureParsingBenchmark {
+
+    private List<String> elementTexts;
+    private String pageSource;
+
+    @Setup
+    public void load() {
+        elementTexts = Fixtures.lines("/fixtures/temperature-texts.txt");
+        pageSource = Fixtures.text("/fixtures/city-page.html");
+    }
+
+    // Every fixture element text once per invocation
+    @Benchmark
+    public void parseElementTexts(Blackhole blackhole) {
+        for (String text : elementTexts) {
+            blackhole.consume(TemperatureScanner.parse(text));
+        }
+    }
+
+    // The current temperature sits past the nav, styles and an inline state blob, as on the real page
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TemperatureScanner.Match scanPageSource() {
+        return TemperatureScanner.find(pageSource);
+    }
+}
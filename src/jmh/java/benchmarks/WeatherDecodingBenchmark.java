@@ -0,0 +1,47 @@
+package benchmarks;
+
+import model.WeatherData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Decoding of fixture /weather and /group responses into {@link WeatherData}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherDecodingBenchmark {
+
+    private byte[] single;
+    private byte[] group;
+
+    @Setup
+    public void load() {
+        // The stub server's recorded Jakarta response, shared with the offline test runs
+        single = Fixtures.bytes("/fixtures/weather/jakarta.json");
+        group = Fixtures.bytes("/fixtures/group-response.json");
+    }
+
+    @Benchmark
+    public WeatherData decodeSingle() {
+        return WeatherData.fromJson(single);
+    }
+
+    // 20 cities, the most one /group request returns
+    @Benchmark
+    public List<WeatherData> decodeGroup() {
+        return WeatherData.listFromJson(group);
+    }
+}
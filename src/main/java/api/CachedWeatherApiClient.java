@@ -0,0 +1,56 @@
+package api;
+
+import model.WeatherData;
+import utils.ConfigReader;
+import utils.TtlLruCache;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Caching front for {@link WeatherApiClient}. OpenWeather only refreshes readings about every
+ * 10 minutes, so lookups for the same city and units within {@code cache.ttl.seconds} are served
+ * from memory, and concurrent lookups share a single in-flight request.
+ */
+public class CachedWeatherApiClient {
+
+    private final WeatherApiClient client;
+    private final TtlLruCache<String, WeatherData> cache;
+
+    public CachedWeatherApiClient(WeatherApiClient client) {
+        this(client,
+                ConfigReader.getInt("cache.max.entries", 256),
+                Duration.ofSeconds(ConfigReader.getLong("cache.ttl.seconds", 600)));
+    }
+
+    public CachedWeatherApiClient(WeatherApiClient client, int maxEntries, Duration ttl) {
+        this.client = client;
+        this.cache = new TtlLruCache<>(maxEntries, ttl);
+    }
+
+    public WeatherData getWeather(String city) {
+        return getWeather(city, WeatherApiClient.DEFAULT_UNITS);
+    }
+
+    public WeatherData getWeather(String city, String units) {
+        return cache.get(cacheKey(city, units), key -> client.getWeather(city, units));
+    }
+
+    public CompletableFuture<WeatherData> getWeatherAsync(String city) {
+        return getWeatherAsync(city, WeatherApiClient.DEFAULT_UNITS);
+    }
+
+    public CompletableFuture<WeatherData> getWeatherAsync(String city, String units) {
+        return cache.getAsync(cacheKey(city, units), key -> client.getWeatherAsync(city, units));
+    }
+
+    public TtlLruCache<String, WeatherData> getCache() {
+        return cache;
+    }
+
+    // "Jakarta" and " jakarta " are the same lookup
+    private static String cacheKey(String city, String units) {
+        return city.trim().toLowerCase(Locale.ROOT) + '|' + units;
+    }
+}
@@ -0,0 +1,18 @@
+package api;
+
+import java.time.Duration;
+
+// Raised instead of calling OpenWeather while its circuit breaker is open
+public class CircuitOpenException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public CircuitOpenException(Duration retryAfter) {
+        super("OpenWeather API circuit is open after repeated failures; failing fast for another " + retryAfter.toMillis() + "ms");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,95 @@
+package api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.CityIndex;
+import utils.ConfigReader;
+import utils.PropertiesFiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * City name to OpenWeather city ID for cities missing from the bundled {@link CityIndex}, learned
+ * from every successful by-name lookup and persisted to {@code city.ids.file} between runs. Once
+ * a city's ID is known it can be fetched through the /group endpoint together with up to
+ * {@value WeatherApiClient#GROUP_LIMIT} others.
+ */
+public final class CityIdCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CityIdCache.class);
+
+    private static final CityIdCache INSTANCE = new CityIdCache(
+            Paths.get(ConfigReader.get("city.ids.file", "target/city-ids.properties")));
+
+    private final Path file;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    CityIdCache(Path file) {
+        this.file = file;
+        load();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::save, "city-ids-save"));
+    }
+
+    public static CityIdCache getInstance() {
+        return INSTANCE;
+    }
+
+    // null when the city has not been looked up by name yet
+    public Integer lookup(String city) {
+        return ids.get(normalize(city));
+    }
+
+    public void learn(String city, int id) {
+        if (id <= 0) return;
+        Integer previous = ids.put(normalize(city), id);
+        if (previous == null || previous != id) dirty = true;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public synchronized void save() {
+        if (!dirty) return;
+        Properties out = new Properties();
+        ids.forEach((city, id) -> out.setProperty(city, String.valueOf(id)));
+        try {
+            PropertiesFiles.storeAtomically(out, file, "OpenWeather city IDs learned from by-name lookups");
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Could not save city IDs to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) return;
+        Properties saved = new Properties();
+        try (InputStream stream = Files.newInputStream(file)) {
+            saved.load(stream);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable city IDs {}: {}", file, e.getMessage());
+            return;
+        }
+        for (String city : saved.stringPropertyNames()) {
+            try {
+                ids.put(city, Integer.parseInt(saved.getProperty(city).trim()));
+            } catch (NumberFormatException ignored) {
+                // Corrupt line: the city is looked up by name again
+            }
+        }
+        log.debug("Loaded {} city IDs from {}", ids.size(), file);
+    }
+
+    // " New  York " and "new york" are the same city
+    static String normalize(String city) {
+        return CityIndex.normalize(city);
+    }
+}
@@ -0,0 +1,226 @@
+package api;
+
+import io.restassured.response.Response;
+import metrics.Metrics;
+import metrics.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * How {@link WeatherApiClient} protects itself and the upstream: a token bucket keeps calls under
+ * the plan's per-minute quota, 429/5xx answers and I/O failures are retried with jittered
+ * exponential backoff (never sooner than Retry-After), every request has a connect and read
+ * timeout, and a circuit breaker refuses calls outright while the upstream keeps failing.
+ * Any of the limiter and breaker may be absent; {@code withRetries(0)} disables retries.
+ */
+public class ResiliencePolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(ResiliencePolicy.class);
+
+    public static final String THROTTLED = "api.throttled";
+    public static final String REJECTED = "api.rejected";
+    public static final String RETRIED = "api.retried";
+    public static final String SHORT_CIRCUITED = "api.short.circuited";
+
+    private TokenBucket rateLimiter;
+    private CircuitBreaker circuitBreaker;
+    private int retries = 3;
+    private Duration baseBackoff = Duration.ofMillis(200);
+    private Duration maxBackoff = Duration.ofSeconds(10);
+    private Duration timeout = Duration.ofSeconds(5);
+
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+
+    /**
+     * Builds the policy from config.properties. The limiter is shared per API key and upstream,
+     * the breaker per upstream, so every client in the JVM draws on the same quota and sees the
+     * same upstream health.
+     */
+    public static ResiliencePolicy fromConfig(String apiKey, String baseUrl) {
+        ResiliencePolicy policy = new ResiliencePolicy()
+                .withRetries(ConfigReader.getInt("retry.count", 3))
+                .withBackoff(Duration.ofMillis(ConfigReader.getLong("retry.backoff.ms", 200)),
+                        Duration.ofMillis(ConfigReader.getLong("retry.backoff.max.ms", 10_000)))
+                .withTimeout(Duration.ofMillis(ConfigReader.getLong("response.timeout", 5000)));
+
+        double perMinute = ConfigReader.getDouble("api.rate.limit.per.minute", 60);
+        if (perMinute > 0) {
+            int burst = ConfigReader.getInt("api.rate.limit.burst", 10);
+            policy.withRateLimiter(TokenBucket.shared(apiKey + '@' + baseUrl, perMinute, burst));
+        }
+        int failureThreshold = ConfigReader.getInt("circuit.failure.threshold", 5);
+        if (failureThreshold > 0) {
+            Duration openFor = Duration.ofSeconds(ConfigReader.getLong("circuit.open.seconds", 30));
+            policy.withCircuitBreaker(CircuitBreaker.shared(baseUrl, failureThreshold, openFor));
+        }
+        return policy;
+    }
+
+    // null disables client-side rate limiting
+    public ResiliencePolicy withRateLimiter(TokenBucket rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    // null disables the circuit breaker
+    public ResiliencePolicy withCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
+    // Retries after the first attempt, so a call makes at most retries + 1 requests
+    public ResiliencePolicy withRetries(int retries) {
+        this.retries = Math.max(0, retries);
+        return this;
+    }
+
+    // Retry n waits a random time up to min(max, base * 2^n); a longer Retry-After gives up instead
+    public ResiliencePolicy withBackoff(Duration base, Duration max) {
+        this.baseBackoff = base;
+        this.maxBackoff = max;
+        return this;
+    }
+
+    // Applied to both connecting and waiting for the response
+    public ResiliencePolicy withTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public TokenBucket getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    // Calls that had to wait for a rate-limiter token
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    // 429 answers from the upstream, whether or not they were retried
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getRetryCount() {
+        return retried.sum();
+    }
+
+    // Calls refused because the circuit was open
+    public long getShortCircuitedCount() {
+        return shortCircuited.sum();
+    }
+
+    /**
+     * Runs one logical call. With {@code retry} false exactly one request is sent and whatever it
+     * answered is returned; otherwise retryable failures are retried and the last answer (or
+     * transport error) is what the caller gets once the retries run out.
+     */
+    Response execute(Supplier<Response> request, boolean retry) {
+        for (int attempt = 0; ; attempt++) {
+            admit();
+            Response response;
+            try {
+                response = request.get();
+            } catch (Exception e) {
+                // RestAssured rethrows socket timeouts and connection failures undeclared
+                if (circuitBreaker != null) circuitBreaker.onFailure();
+                if (!retry || attempt >= retries || !isTransportFailure(e)) throw unchecked(e);
+                log.debug("Retrying after {}: {}", e.getClass().getSimpleName(), e.getMessage());
+                backOff(attempt, Duration.ZERO);
+                continue;
+            }
+
+            int status = response.statusCode();
+            if (status != 429 && status < 500) {
+                if (circuitBreaker != null) circuitBreaker.onSuccess();
+                return response;
+            }
+            if (circuitBreaker != null) circuitBreaker.onFailure();
+            Duration retryAfter = Duration.ZERO;
+            if (status == 429) {
+                rejected.increment();
+                Metrics.increment(REJECTED);
+                retryAfter = retryAfter(response);
+            }
+            if (!retry || attempt >= retries || retryAfter.compareTo(maxBackoff) > 0) return response;
+            log.debug("Retrying after HTTP {} (attempt {} of {})", status, attempt + 1, retries);
+            backOff(attempt, retryAfter);
+        }
+    }
+
+    // Fails fast on an open circuit, then waits for a quota token
+    private void admit() {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            shortCircuited.increment();
+            Metrics.increment(SHORT_CIRCUITED);
+            throw new CircuitOpenException(circuitBreaker.getRemainingOpenTime());
+        }
+        if (rateLimiter != null) {
+            long waited = rateLimiter.acquire();
+            if (waited > 0) {
+                throttled.increment();
+                Metrics.increment(THROTTLED);
+                Metrics.record(Phase.RATE_LIMIT_WAIT, waited);
+            }
+        }
+    }
+
+    // Full jitter: spreads retries from concurrent callers instead of synchronising them
+    private void backOff(int attempt, Duration notBefore) {
+        long ceiling = Math.min(maxBackoff.toNanos(), baseBackoff.toNanos() << Math.min(attempt, 30));
+        long delay = Math.max(notBefore.toNanos(), ThreadLocalRandom.current().nextLong(Math.max(1, ceiling)));
+        retried.increment();
+        Metrics.increment(RETRIED);
+        Metrics.record(Phase.RETRY_BACKOFF, delay);
+        try {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off before a retry", e);
+        }
+    }
+
+    // Retry-After in seconds; OpenWeather does not send the HTTP-date form
+    private static Duration retryAfter(Response response) {
+        String header = response.getHeader("Retry-After");
+        if (header == null) return Duration.ZERO;
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(header.trim())));
+        } catch (NumberFormatException e) {
+            return Duration.ZERO;
+        }
+    }
+
+    private static boolean isTransportFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) return true;
+        }
+        return false;
+    }
+
+    private static RuntimeException unchecked(Exception error) {
+        if (error instanceof RuntimeException) return (RuntimeException) error;
+        if (error instanceof IOException) return new UncheckedIOException((IOException) error);
+        return new IllegalStateException(error);
+    }
+}
@@ -0,0 +1,75 @@
+package api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter. The bucket refills at a steady rate up to {@code burst} tokens and
+ * every call takes one. When it is empty a caller reserves the next token and waits for it, so
+ * queued callers are released in arrival order at exactly the refill rate instead of all retrying
+ * at once. Buckets obtained through {@link #shared} are one per name (the API key), because the
+ * quota belongs to the key rather than to any one client instance.
+ */
+public class TokenBucket {
+
+    private static final Map<String, TokenBucket> SHARED = new ConcurrentHashMap<>();
+
+    private final double burst;
+    private final double nanosPerToken;
+    private final LongSupplier clock;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    // clock returns nanoseconds; tests pass a fake one
+    public TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+        if (permitsPerSecond <= 0) throw new IllegalArgumentException("permitsPerSecond must be positive, was " + permitsPerSecond);
+        if (burst < 1) throw new IllegalArgumentException("burst must be at least 1, was " + burst);
+        this.burst = burst;
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.clock = clock;
+        this.tokens = burst;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    // The bucket for this name, created on first use; later calls get the same one whatever they pass
+    public static TokenBucket shared(String name, double permitsPerMinute, int burst) {
+        return SHARED.computeIfAbsent(name, k -> new TokenBucket(permitsPerMinute / 60.0, burst));
+    }
+
+    /** Takes a token, waiting until it is available. Returns the nanoseconds waited. */
+    public long acquire() {
+        long wait = reserve();
+        long deadline = clock.getAsLong() + wait;
+        long remaining = wait;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - clock.getAsLong();
+        }
+        return wait;
+    }
+
+    /** Takes a token now or in the future and returns how many nanoseconds until it is due. */
+    public synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * nanosPerToken);
+    }
+
+    public synchronized double getAvailableTokens() {
+        refill();
+        return Math.max(0, tokens);
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) / nanosPerToken);
+        refilledAt = now;
+    }
+}
@@ -1,22 +1,315 @@
 package api;
 
 import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import metrics.Metrics;
+import metrics.Phase;
+import model.City;
+import model.WeatherData;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreConnectionPNames;
+import utils.CityIndex;
+import utils.ConfigReader;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class WeatherApiClient {
 
-    private final String apiKey;
+    public static final String DEFAULT_BASE_URL = "https://api.openweathermap.org/data/2.5";
+
+    // Connection pool limits, shared by every client instance in the JVM
+    private static final int MAX_CONNECTIONS_TOTAL = 50;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+    public static final String DEFAULT_UNITS = "metric";
+    // Most city IDs OpenWeather accepts in one /group request
+    public static final int GROUP_LIMIT = 20;
+
+    // One connection pool for the whole run, so TLS sessions and keep-alive connections are reused
+    @SuppressWarnings("deprecation")
+    private static final PoolingClientConnectionManager CONNECTION_POOL = createConnectionPool();
+
+    // Daemon threads so an unfinished batch never keeps the test JVM alive
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(MAX_CONNECTIONS_PER_ROUTE, daemonThreads());
+
+    private final int maxConcurrency;
+    private final ResiliencePolicy policy;
+    private final CityIndex cityIndex = CityIndex.getDefault();
+    private final CityIdCache cityIds = CityIdCache.getInstance();
+    private final RequestSpecification requestSpec;
 
     public WeatherApiClient(String apiKey) {
-        this.apiKey = apiKey;
+        this(apiKey, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    public WeatherApiClient(String apiKey, int maxConcurrency) {
+        this(apiKey, ConfigReader.get("api.base.url", DEFAULT_BASE_URL), maxConcurrency);
+    }
+
+    // baseUrl is everything before /weather, e.g. http://localhost:8089/data/2.5 for the stub server
+    public WeatherApiClient(String apiKey, String baseUrl, int maxConcurrency) {
+        this(apiKey, baseUrl, maxConcurrency, ResiliencePolicy.fromConfig(apiKey, baseUrl));
+    }
+
+    public WeatherApiClient(String apiKey, String baseUrl, int maxConcurrency, ResiliencePolicy policy) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1, was " + maxConcurrency);
+        }
+        this.maxConcurrency = Math.min(maxConcurrency, MAX_CONNECTIONS_PER_ROUTE);
+        this.policy = policy;
+        this.requestSpec = new RequestSpecBuilder()
+                .setBaseUri(baseUrl)
+                .setConfig(pooledConfig(policy.getTimeout()))
+                .addQueryParam("appid", apiKey)
+                .build();
     }
 
     public Response getWeatherByCity(String city) {
-        return RestAssured
-                .given()
-                .queryParam("q", city)
-                .queryParam("appid", apiKey)
-                .queryParam("units", "metric")
-                .get("https://api.openweathermap.org/data/2.5/weather");
+        return getWeatherByCity(city, DEFAULT_UNITS);
+    }
+
+    // units: metric, imperial or standard. One request, rate limited and circuit-guarded but
+    // never retried, so callers see the status the API actually answered
+    public Response getWeatherByCity(String city, String units) {
+        return policy.execute(() -> requestByCity(city, units), false);
+    }
+
+    // Typed lookup: decodes the body in one streaming pass, throws WeatherApiException on non-200
+    public WeatherData getWeather(String city) {
+        return getWeather(city, DEFAULT_UNITS);
+    }
+
+    // Retries 429, 5xx and I/O failures per the resilience policy before giving up. Cities with a
+    // known ID are queried by ID, which skips OpenWeather's free-text geocoding
+    public WeatherData getWeather(String city, String units) {
+        Integer id = resolveId(city);
+        if (id != null) return getWeatherById(id, units);
+        return getWeatherByName(city, units);
+    }
+
+    public WeatherData getWeatherById(int cityId) {
+        return getWeatherById(cityId, DEFAULT_UNITS);
+    }
+
+    public WeatherData getWeatherById(int cityId, String units) {
+        return toWeatherData(policy.execute(() -> {
+            try (Metrics.Timer ignored = Metrics.start(Phase.API_CALL)) {
+                return RestAssured
+                        .given(requestSpec)
+                        .queryParam("id", cityId)
+                        .queryParam("units", units)
+                        .get("/weather");
+            }
+        }, true));
+    }
+
+    public CompletableFuture<WeatherData> getWeatherAsync(String city) {
+        return getWeatherAsync(city, DEFAULT_UNITS);
+    }
+
+    public CompletableFuture<WeatherData> getWeatherAsync(String city, String units) {
+        return CompletableFuture.supplyAsync(() -> getWeather(city, units), EXECUTOR);
+    }
+
+    public Map<String, WeatherData> getWeatherByCities(Collection<String> cities) {
+        return getWeatherByCities(cities, DEFAULT_UNITS);
+    }
+
+    /**
+     * Looks up every distinct city, keeping the iteration order of the given cities. Cities with
+     * a known ID (see {@link #resolveId}) are fetched {@value #GROUP_LIMIT} at a time through
+     * /group. The rest, and cities whose ID the group call did not return, get one by-name lookup
+     * each (retried like {@link #getWeather}), which records the ID OpenWeather answers with for
+     * next time. Cities OpenWeather does not know by name are left out of the result.
+     */
+    public Map<String, WeatherData> getWeatherByCities(Collection<String> cities, String units) {
+        Map<String, Integer> known = new LinkedHashMap<>();
+        for (String city : new LinkedHashSet<>(cities)) {
+            known.put(city, resolveId(city));
+        }
+        List<Integer> ids = known.values().stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Map<Integer, WeatherData> byId = ids.isEmpty() ? Collections.emptyMap() : getWeatherByIds(ids, units);
+
+        List<String> byName = new ArrayList<>();
+        known.forEach((city, id) -> {
+            if (id == null || !byId.containsKey(id)) byName.add(city);
+        });
+        // Straight to the name: resolving the ID again would repeat the lookup /group just missed
+        Map<String, WeatherData> named = fanOut(byName, city -> findByName(city, units));
+
+        Map<String, WeatherData> results = new LinkedHashMap<>();
+        known.forEach((city, id) -> {
+            WeatherData data = named.containsKey(city) ? named.get(city) : byId.get(id);
+            if (data != null) results.put(city, data);
+        });
+        return results;
+    }
+
+    public Map<Integer, WeatherData> getWeatherByIds(Collection<Integer> ids) {
+        return getWeatherByIds(ids, DEFAULT_UNITS);
+    }
+
+    // Splits the distinct IDs into /group requests of at most GROUP_LIMIT and merges the answers in
+    // the given order. IDs OpenWeather does not know are simply absent from the result
+    public Map<Integer, WeatherData> getWeatherByIds(Collection<Integer> ids, String units) {
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += GROUP_LIMIT) {
+            chunks.add(distinct.subList(from, Math.min(from + GROUP_LIMIT, distinct.size())));
+        }
+
+        Map<Integer, WeatherData> found = new HashMap<>();
+        fanOut(chunks, chunk -> getWeatherGroup(chunk, units))
+                .values()
+                .forEach(list -> list.forEach(data -> found.put(data.getCityId(), data)));
+
+        Map<Integer, WeatherData> results = new LinkedHashMap<>();
+        for (Integer id : distinct) {
+            WeatherData data = found.get(id);
+            if (data != null) results.put(id, data);
+        }
+        return results;
+    }
+
+    // The bundled city index first, then IDs learned from earlier by-name lookups; null if neither knows the city
+    Integer resolveId(String city) {
+        City listed = cityIndex.resolve(city);
+        return listed != null ? Integer.valueOf(listed.getId()) : cityIds.lookup(city);
+    }
+
+    public ResiliencePolicy getPolicy() {
+        return policy;
+    }
+
+    // One /group request; retried like getWeather
+    private List<WeatherData> getWeatherGroup(List<Integer> ids, String units) {
+        String idList = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        Response response = policy.execute(() -> {
+            try (Metrics.Timer ignored = Metrics.start(Phase.API_CALL)) {
+                return RestAssured
+                        .given(requestSpec)
+                        .queryParam("id", idList)
+                        .queryParam("units", units)
+                        .get("/group");
+            }
+        }, true);
+        return WeatherData.listFromJson(successBody(response));
+    }
+
+    // By-name lookup that records the ID OpenWeather answers with
+    private WeatherData getWeatherByName(String city, String units) {
+        WeatherData data = toWeatherData(policy.execute(() -> requestByCity(city, units), true));
+        cityIds.learn(city, data.getCityId());
+        return data;
+    }
+
+    // As getWeatherByName, but null instead of a 404 so one unknown city does not fail a batch
+    private WeatherData findByName(String city, String units) {
+        try {
+            return getWeatherByName(city, units);
+        } catch (WeatherApiException e) {
+            if (e.getStatusCode() == 404) return null;
+            throw e;
+        }
+    }
+
+    // Runs call for each key on the shared executor, never more than maxConcurrency at once.
+    // Results keep the key order; the first failure is rethrown once every call has been started
+    private <K, V> Map<K, V> fanOut(Collection<K> keys, Function<K, V> call) {
+        Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        for (K key : keys) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<V> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> call.apply(key), EXECUTOR);
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            future.whenComplete((data, error) -> permits.release());
+            pending.put(key, future);
+        }
+
+        Map<K, V> results = new LinkedHashMap<>();
+        pending.forEach((key, future) -> results.put(key, future.join()));
+        return results;
+    }
+
+    private Response requestByCity(String city, String units) {
+        try (Metrics.Timer ignored = Metrics.start(Phase.API_CALL)) {
+            return RestAssured
+                    .given(requestSpec)
+                    .queryParam("q", city)
+                    .queryParam("units", units)
+                    .get("/weather");
+        }
+    }
+
+    static WeatherData toWeatherData(Response response) {
+        return WeatherData.fromJson(successBody(response));
+    }
+
+    private static byte[] successBody(Response response) {
+        byte[] body = response.asByteArray();
+        if (response.statusCode() != 200) {
+            throw new WeatherApiException(response.statusCode(), new String(body, StandardCharsets.UTF_8));
+        }
+        return body;
+    }
+
+    // Each client gets its own HttpClient (carrying its timeouts) on top of the shared pool.
+    // The pool wait is bounded too, so a saturated pool fails like any other timeout
+    @SuppressWarnings("deprecation")
+    private static RestAssuredConfig pooledConfig(Duration timeout) {
+        int millis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+        return RestAssuredConfig.config()
+                .httpClient(HttpClientConfig.httpClientConfig()
+                        .httpClientFactory(() -> new DefaultHttpClient(CONNECTION_POOL))
+                        .reuseHttpClientInstance()
+                        .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, millis)
+                        .setParam(CoreConnectionPNames.SO_TIMEOUT, millis)
+                        .setParam(ClientPNames.CONN_MANAGER_TIMEOUT, (long) millis));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static PoolingClientConnectionManager createConnectionPool() {
+        PoolingClientConnectionManager pool = new PoolingClientConnectionManager();
+        pool.setMaxTotal(MAX_CONNECTIONS_TOTAL);
+        pool.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        return pool;
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "weather-api-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 }
@@ -0,0 +1,16 @@
+package api;
+
+// Raised when OpenWeather answers with anything other than HTTP 200
+public class WeatherApiException extends RuntimeException {
+
+    private final int statusCode;
+
+    public WeatherApiException(int statusCode, String message) {
+        super("OpenWeather API returned " + statusCode + ": " + message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -1,47 +1,72 @@
 package base;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
 
 import java.time.Duration;
 
 public class BaseTest {
 
-    protected WebDriver driver;
-    protected WebDriverWait wait;
+    // TestNG shares one test instance across worker threads (parallel methods / data providers),
+    // so each thread owns its leased browser through a ThreadLocal rather than an instance field
+    private static final ThreadLocal<WebDriver> DRIVER = new ThreadLocal<>();
 
-    @BeforeMethod
+    // testng.xml's browser/headless parameters apply unless -Dbrowser.type / -Dheadless.mode were given;
+    // either way they take precedence over config.properties when BrowserFactory.fromConfig() reads them
+    @BeforeSuite(alwaysRun = true)
+    @Parameters({"browser", "headless"})
+    public void configureBrowser(@Optional String browser, @Optional String headless) {
+        if (browser != null && System.getProperty("browser.type") == null) {
+            System.setProperty("browser.type", browser);
+        }
+        if (headless != null && System.getProperty("headless.mode") == null) {
+            System.setProperty("headless.mode", headless);
+        }
+    }
+
+    @BeforeMethod(alwaysRun = true)
     public void setUp() {
-        // Pastikan driver terbaru dan bersih
-        WebDriverManager.chromedriver().clearDriverCache().setup();
-        
-        driver = new ChromeDriver();
-        wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        // Lease a warmed browser from the pool instead of starting a new one per test
+        DRIVER.set(DriverPool.getInstance().lease());
     }
 
-    @AfterMethod
+    @AfterMethod(alwaysRun = true)
     public void tearDown() {
+        WebDriver driver = DRIVER.get();
         if (driver != null) {
-            try {
-                driver.quit();
-            } catch (Exception e) {
-                System.out.println("Warning: Driver quit timeout, forcing process termination");
-                try {
-                    // Force kill Chrome processes if driver.quit() times out
-                    Runtime.getRuntime().exec("taskkill /F /IM chrome.exe /T");
-                    Runtime.getRuntime().exec("taskkill /F /IM chromedriver.exe /T");
-                } catch (Exception ignored) {}
-            }
+            DRIVER.remove();
+            DriverPool.getInstance().release(driver);
+        }
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void shutDownDriverPool() {
+        DriverPool.shutdownShared();
+    }
+
+    // Browser owned by the calling test thread; null outside a test method
+    public static WebDriver currentDriver() {
+        return DRIVER.get();
+    }
+
+    protected WebDriver getDriver() {
+        WebDriver driver = DRIVER.get();
+        if (driver == null) {
+            throw new IllegalStateException("No browser leased on thread " + Thread.currentThread().getName());
         }
+        return driver;
     }
 
     public void explicitWait(By locator) {
-        wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        new WebDriverWait(getDriver(), Duration.ofSeconds(10))
+            .until(ExpectedConditions.visibilityOfElementLocated(locator));
     }
 }
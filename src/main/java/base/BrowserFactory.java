@@ -0,0 +1,183 @@
+package base;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Starts browser sessions as configured: browser type, headless mode, window size and page-load
+ * strategy, with requests for assets the tests never read (images, fonts, ad and chat-widget
+ * scripts) blocked so pages settle sooner. Chrome blocks by URL pattern through DevTools;
+ * Firefox has no equivalent, so there only images and web fonts are turned off by preference.
+ */
+public class BrowserFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(BrowserFactory.class);
+
+    public enum Browser {
+        CHROME, FIREFOX
+    }
+
+    // Never waited on by a test: images, web fonts and third-party ad, analytics and chat scripts
+    public static final List<String> DEFAULT_BLOCKED_URLS = Collections.unmodifiableList(Arrays.asList(
+            "*.png", "*.jpg", "*.jpeg", "*.gif", "*.webp", "*.svg", "*.ico",
+            "*.woff", "*.woff2", "*.ttf", "*.otf", "*.eot",
+            "*doubleclick.net*", "*googlesyndication.com*", "*googleadservices.com*", "*adservice.google.*",
+            "*googletagmanager.com*", "*google-analytics.com*", "*facebook.net*", "*hotjar.com*",
+            "*intercom.io*", "*intercomcdn.com*", "*tawk.to*", "*crisp.chat*", "*zopim.com*"));
+
+    private static final Set<Browser> resolvedDrivers = EnumSet.noneOf(Browser.class);
+
+    private Browser browser = Browser.CHROME;
+    private boolean headless;
+    private int windowWidth = 1920;
+    private int windowHeight = 1080;
+    private PageLoadStrategy pageLoadStrategy = PageLoadStrategy.EAGER;
+    private List<String> blockedUrls = DEFAULT_BLOCKED_URLS;
+
+    // Builds a factory from the browser.* and headless.mode keys in config.properties
+    public static BrowserFactory fromConfig() {
+        BrowserFactory factory = new BrowserFactory()
+                .withBrowser(Browser.valueOf(ConfigReader.get("browser.type", "chrome").toUpperCase(Locale.ROOT)))
+                .withHeadless(ConfigReader.getBoolean("headless.mode", false))
+                .withWindowSize(ConfigReader.getInt("browser.window.width", 1920), ConfigReader.getInt("browser.window.height", 1080))
+                .withPageLoadStrategy(PageLoadStrategy.valueOf(ConfigReader.get("browser.page.load.strategy", "eager").toUpperCase(Locale.ROOT)));
+        if (!ConfigReader.getBoolean("browser.block.resources", true)) {
+            factory.withBlockedUrls(Collections.emptyList());
+        } else if (ConfigReader.get("browser.blocked.urls", null) != null) {
+            factory.withBlockedUrls(Arrays.stream(ConfigReader.get("browser.blocked.urls").split(","))
+                    .map(String::trim).filter(p -> !p.isEmpty()).collect(Collectors.toList()));
+        }
+        return factory;
+    }
+
+    public BrowserFactory withBrowser(Browser browser) {
+        this.browser = browser;
+        return this;
+    }
+
+    public BrowserFactory withHeadless(boolean headless) {
+        this.headless = headless;
+        return this;
+    }
+
+    public BrowserFactory withWindowSize(int width, int height) {
+        this.windowWidth = width;
+        this.windowHeight = height;
+        return this;
+    }
+
+    // EAGER returns once the DOM is parsed instead of waiting for every subresource
+    public BrowserFactory withPageLoadStrategy(PageLoadStrategy pageLoadStrategy) {
+        this.pageLoadStrategy = pageLoadStrategy;
+        return this;
+    }
+
+    // URL patterns with * wildcards; an empty list blocks nothing
+    public BrowserFactory withBlockedUrls(List<String> blockedUrls) {
+        this.blockedUrls = Collections.unmodifiableList(new ArrayList<>(blockedUrls));
+        return this;
+    }
+
+    public Browser getBrowser() {
+        return browser;
+    }
+
+    public WebDriver create() {
+        resolveDriver(browser);
+        return browser == Browser.FIREFOX ? createFirefox() : createChrome();
+    }
+
+    // The options create() starts a session with; request blocking is applied to the session afterwards
+    public ChromeOptions chromeOptions() {
+        ChromeOptions options = new ChromeOptions();
+        options.setPageLoadStrategy(pageLoadStrategy);
+        options.addArguments("--window-size=" + windowWidth + "," + windowHeight);
+        if (headless) options.addArguments("--headless=new");
+        // Keeps console messages readable for FailureArtifacts when a test fails
+        LoggingPreferences logging = new LoggingPreferences();
+        logging.enable(LogType.BROWSER, Level.ALL);
+        options.setCapability(ChromeOptions.LOGGING_PREFS, logging);
+        return options;
+    }
+
+    public FirefoxOptions firefoxOptions() {
+        FirefoxOptions options = new FirefoxOptions();
+        options.setPageLoadStrategy(pageLoadStrategy);
+        options.addArguments("--width=" + windowWidth, "--height=" + windowHeight);
+        if (headless) options.addArguments("-headless");
+        if (!blockedUrls.isEmpty()) {
+            options.addPreference("permissions.default.image", 2);
+            options.addPreference("browser.display.use_document_fonts", 0);
+        }
+        return options;
+    }
+
+    private WebDriver createChrome() {
+        ChromeDriver driver = new ChromeDriver(chromeOptions());
+        if (!blockedUrls.isEmpty()) blockUrls(driver);
+        return driver;
+    }
+
+    private WebDriver createFirefox() {
+        if (!blockedUrls.isEmpty()) {
+            log.debug("Firefox has no URL blocking; only images and web fonts are disabled");
+        }
+        return new FirefoxDriver(firefoxOptions());
+    }
+
+    // Version-independent CDP commands, so this keeps working as Chrome updates
+    private void blockUrls(ChromiumDriver driver) {
+        try {
+            driver.executeCdpCommand("Network.enable", Collections.emptyMap());
+            driver.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", blockedUrls));
+        } catch (RuntimeException e) {
+            log.warn("Could not enable request blocking, pages will load every asset: {}", e.getMessage());
+        }
+    }
+
+    // Resolves each driver binary once per JVM without clearing the cache. WebDriverManager reuses its
+    // cached resolution (webdriver.resolution.ttl.seconds) so offline runs never hit the network;
+    // if it still fails, Selenium Manager resolves the driver when the session starts.
+    // The lock is held until setup() returns, so no pooled session starts before its driver is resolved.
+    private static void resolveDriver(Browser browser) {
+        synchronized (resolvedDrivers) {
+            if (resolvedDrivers.contains(browser)) return;
+            String property = browser == Browser.FIREFOX ? "webdriver.gecko.driver" : "webdriver.chrome.driver";
+            if (System.getProperty(property) == null) {
+                try {
+                    WebDriverManager manager = browser == Browser.FIREFOX ? WebDriverManager.firefoxdriver() : WebDriverManager.chromedriver();
+                    manager.useLocalVersionsPropertiesFirst()
+                            .ttl(ConfigReader.getInt("webdriver.resolution.ttl.seconds", 30 * 24 * 3600))
+                            .avoidShutdownHook()
+                            .setup();
+                } catch (Exception e) {
+                    log.warn("WebDriverManager could not resolve the {} driver ({}); falling back to Selenium Manager",
+                            browser.name().toLowerCase(Locale.ROOT), e.getMessage());
+                }
+            }
+            resolvedDrivers.add(browser);
+        }
+    }
+}
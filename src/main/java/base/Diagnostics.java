@@ -0,0 +1,107 @@
+package base;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import utils.ConfigReader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Diagnostic payloads such as an element's outerHTML, which cost a browser round trip to read.
+ * Nothing is read up front: a payload passed as a log argument is read only if the message is
+ * actually logged, and payloads deferred against a browser session are read only if the test
+ * using it fails. Deferred payloads are kept per session, not per thread, because page work may
+ * run on a worker thread (see {@code comparison.ComparisonPipeline}).
+ */
+public final class Diagnostics {
+
+    private static final int MAX_DEFERRED = ConfigReader.getInt("diagnostics.max.deferred", 20);
+
+    private static final Map<WebDriver, Deque<Entry>> DEFERRED = new IdentityHashMap<>();
+
+    private Diagnostics() {
+    }
+
+    /** Log argument that reads the payload on first {@code toString()}, i.e. only when the message is written. */
+    public static Object lazy(Supplier<String> payload) {
+        return new Lazy(payload);
+    }
+
+    public static Object outerHtml(WebElement element) {
+        return lazy(() -> element.getAttribute("outerHTML"));
+    }
+
+    /**
+     * Keeps the element's outerHTML to report if this session's test fails; beyond
+     * {@code diagnostics.max.deferred} entries the oldest is dropped. Returns the same payload as
+     * a log argument, so logging it as well costs at most one read.
+     */
+    public static Object deferOuterHtml(WebDriver driver, String label, WebElement element) {
+        Lazy payload = new Lazy(() -> element.getAttribute("outerHTML"));
+        synchronized (DEFERRED) {
+            Deque<Entry> entries = DEFERRED.computeIfAbsent(driver, d -> new ArrayDeque<>());
+            if (entries.size() >= MAX_DEFERRED) entries.removeFirst();
+            entries.addLast(new Entry(label, payload));
+        }
+        return payload;
+    }
+
+    /** Reads and forgets the session's deferred payloads as "label: payload", oldest first. */
+    public static List<String> drain(WebDriver driver) {
+        Deque<Entry> entries;
+        synchronized (DEFERRED) {
+            entries = DEFERRED.remove(driver);
+        }
+        List<String> resolved = new ArrayList<>();
+        if (entries == null) return resolved;
+        for (Entry entry : entries) {
+            resolved.add(entry.label + ": " + entry.payload);
+        }
+        return resolved;
+    }
+
+    // Forgets the session's deferred payloads without reading them, e.g. after a passing test
+    public static void clear(WebDriver driver) {
+        synchronized (DEFERRED) {
+            DEFERRED.remove(driver);
+        }
+    }
+
+    private static final class Entry {
+        private final String label;
+        private final Lazy payload;
+
+        private Entry(String label, Lazy payload) {
+            this.label = label;
+            this.payload = payload;
+        }
+    }
+
+    private static final class Lazy {
+        private final Supplier<String> supplier;
+        private String value;
+
+        private Lazy(Supplier<String> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (value == null) {
+                try {
+                    value = String.valueOf(supplier.get());
+                } catch (RuntimeException e) {
+                    // Typically a stale element: the page moved on before anyone asked
+                    value = "<unavailable: " + e.getClass().getSimpleName() + ">";
+                }
+            }
+            return value;
+        }
+    }
+}
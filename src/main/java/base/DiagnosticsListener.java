@@ -0,0 +1,72 @@
+package base;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Tags log lines with the running test (MDC key {@code test}) and, when a browser test fails,
+ * hands what {@link Diagnostics} deferred for its session to {@link FailureArtifacts} together
+ * with a screenshot, the page source and the browser console. Passing tests never pay for any of
+ * it. At the end of the suite, waits briefly for queued artifacts to be written.
+ */
+public class DiagnosticsListener implements IInvokedMethodListener, ISuiteListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagnosticsListener.class);
+
+    private static final String MDC_TEST = "test";
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        MDC.put(MDC_TEST, testResult.getMethod().getMethodName());
+    }
+
+    // Runs before the test result listeners, while Allure still has the test case open
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        try {
+            WebDriver driver = BaseTest.currentDriver();
+            if (!method.isTestMethod() || driver == null) return;
+            if (testResult.getStatus() == ITestResult.FAILURE) {
+                report(testResult, driver);
+            } else {
+                Diagnostics.clear(driver);
+            }
+        } finally {
+            MDC.remove(MDC_TEST);
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        FailureArtifacts artifacts = FailureArtifacts.getInstance();
+        if (!artifacts.awaitIdle(Duration.ofSeconds(30))) {
+            log.warn("Failure artifacts still being written to {}", artifacts.getDirectory());
+        }
+        if (artifacts.getDroppedCount() > 0) {
+            log.warn("{} failures had no artifacts captured (queue full)", artifacts.getDroppedCount());
+        }
+    }
+
+    private static void report(ITestResult testResult, WebDriver driver) {
+        List<String> deferred = Diagnostics.drain(driver);
+        for (String entry : deferred) {
+            log.warn("Deferred diagnostic: {}", entry);
+        }
+        try {
+            String testName = testResult.getTestClass().getRealClass().getSimpleName() + "." + testResult.getMethod().getMethodName();
+            FailureArtifacts.getInstance().capture(testName, driver, deferred);
+        } catch (RuntimeException e) {
+            log.debug("Could not capture failure artifacts: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package base;
+
+import metrics.Metrics;
+import metrics.Phase;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverCommandExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe pool of warmed browser sessions. Tests lease a session instead of starting a
+ * browser, and the session is reset (cookies, storage, about:blank) when it is released.
+ * Sessions that fail a health check or reach {@code driver.pool.max.uses} are replaced.
+ */
+public class DriverPool {
+
+    private static final Logger log = LoggerFactory.getLogger(DriverPool.class);
+
+    private static final String CLEAR_STORAGE_JS =
+            "try { window.localStorage.clear(); } catch (e) {} try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private static DriverPool instance;
+
+    static {
+        // One hook per JVM, quitting whichever shared pool is current at exit
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverPool::shutdownShared, "driver-pool-shutdown"));
+    }
+
+    private final int maxSize;
+    private final int maxUses;
+    private final Duration leaseTimeout;
+    private final Supplier<WebDriver> factory;
+
+    private final BlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+    private final Map<WebDriver, Integer> useCounts = new IdentityHashMap<>();
+    private int created;
+    private volatile boolean closed;
+
+    public DriverPool(int maxSize, int maxUses, Duration leaseTimeout, Supplier<WebDriver> factory) {
+        if (maxSize < 1) throw new IllegalArgumentException("Pool size must be at least 1, was " + maxSize);
+        this.maxSize = maxSize;
+        this.maxUses = Math.max(1, maxUses);
+        this.leaseTimeout = leaseTimeout;
+        this.factory = factory;
+    }
+
+    // JVM-wide pool configured from driver.pool.* keys; browsers are quit on shutdown
+    public static synchronized DriverPool getInstance() {
+        if (instance == null) {
+            instance = new DriverPool(
+                    ConfigReader.getInt("driver.pool.size", 3),
+                    ConfigReader.getInt("driver.pool.max.uses", 20),
+                    Duration.ofSeconds(ConfigReader.getLong("driver.pool.lease.timeout.seconds", 120)),
+                    BrowserFactory.fromConfig()::create);
+        }
+        return instance;
+    }
+
+    // Quits the shared pool's browsers if it was ever started; the next getInstance() starts a fresh pool
+    public static synchronized void shutdownShared() {
+        if (instance == null) return;
+        instance.shutdown();
+        instance = null;
+    }
+
+    public WebDriver lease() {
+        long deadline = System.nanoTime() + leaseTimeout.toNanos();
+        while (true) {
+            WebDriver driver = idle.pollFirst();
+            if (driver != null) {
+                if (isHealthy(driver)) return driver;
+                log.warn("Discarding unhealthy browser session");
+                discard(driver);
+                continue;
+            }
+            if (reserveSlot()) {
+                return createSession();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IllegalStateException("No browser session available within " + leaseTimeout + " (pool size " + maxSize + ")");
+            }
+            try {
+                driver = idle.pollFirst(Math.min(remaining, TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+            }
+            if (driver != null) idle.offerFirst(driver);
+        }
+    }
+
+    public void release(WebDriver driver) {
+        if (driver == null) return;
+        int uses;
+        synchronized (this) {
+            uses = useCounts.merge(driver, 1, Integer::sum);
+        }
+        // Detach the network capture listeners before the session goes back to the pool
+        WeatherResponseCapture.detach(driver);
+        Diagnostics.clear(driver);
+        if (closed) {
+            discard(driver);
+            return;
+        }
+        if (uses >= maxUses) {
+            log.debug("Recycling browser session after {} uses", uses);
+            discard(driver);
+            return;
+        }
+        try {
+            reset(driver);
+        } catch (Exception e) {
+            log.warn("Browser session could not be reset, discarding it: {}", e.getMessage());
+            discard(driver);
+            return;
+        }
+        // Most recently used first: keeps the warmest sessions busy
+        idle.offerFirst(driver);
+    }
+
+    // Invalidates a session that a test left in a bad state instead of returning it to the pool
+    public void discard(WebDriver driver) {
+        WeatherResponseCapture.detach(driver);
+        Diagnostics.clear(driver);
+        synchronized (this) {
+            idle.remove(driver);
+            if (useCounts.remove(driver) != null) created--;
+        }
+        quit(driver);
+    }
+
+    public synchronized void shutdown() {
+        closed = true;
+        List<WebDriver> drivers = new ArrayList<>();
+        idle.drainTo(drivers);
+        for (WebDriver driver : drivers) {
+            useCounts.remove(driver);
+            created--;
+            quit(driver);
+        }
+    }
+
+    private synchronized boolean reserveSlot() {
+        if (closed) throw new IllegalStateException("Driver pool is shut down");
+        if (created >= maxSize) return false;
+        created++;
+        return true;
+    }
+
+    private WebDriver createSession() {
+        try {
+            long start = System.nanoTime();
+            WebDriver driver = factory.get();
+            Metrics.record(Phase.DRIVER_STARTUP, System.nanoTime() - start);
+            synchronized (this) {
+                useCounts.put(driver, 0);
+            }
+            return driver;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                created--;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void reset(WebDriver driver) {
+        driver.manage().deleteAllCookies();
+        ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_JS);
+        driver.get("about:blank");
+    }
+
+    private static void quit(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            log.warn("Driver quit failed, stopping its driver service: {}", e.getMessage());
+            // Only this session's chromedriver/geckodriver; other leased sessions keep running
+            if (!(driver instanceof RemoteWebDriver)) return;
+            CommandExecutor executor = ((RemoteWebDriver) driver).getCommandExecutor();
+            if (!(executor instanceof DriverCommandExecutor)) return;
+            try {
+                ((DriverCommandExecutor) executor).close();
+            } catch (Exception stopFailure) {
+                log.warn("Could not stop driver service: {}", stopFailure.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package base;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Screenshot, page source, browser console and deferred {@link Diagnostics} of a failed test.
+ * The test thread only does the browser round trips; decoding, JPEG re-encoding, gzip and file
+ * writes run on a small bounded executor. Each failure gets a folder under
+ * {@code screenshots.directory}, and the oldest folders are deleted once the directory exceeds
+ * {@code artifacts.max.disk.mb}. Allure attachments are registered on the test thread, while the
+ * test case is still open, and their content is written in the background. When the executor is
+ * saturated the failure is logged and its artifacts are skipped rather than making the test wait.
+ */
+public final class FailureArtifacts {
+
+    private static final Logger log = LoggerFactory.getLogger(FailureArtifacts.class);
+
+    // Base64 of the 8-byte PNG signature, which every WebDriver screenshot starts with
+    private static final String PNG_BASE64_PREFIX = "iVBORw0KGgo";
+    private static final boolean JPEG_WRITER_AVAILABLE = ImageIO.getImageWritersByFormatName("jpeg").hasNext();
+
+    private static final DateTimeFormatter FOLDER_STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private static FailureArtifacts instance;
+
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final int maxTextChars;
+    private final float jpegQuality;
+    private final int capacity;
+    // One permit per running or queued capture, so the test thread never waits on a full queue
+    private final Semaphore slots;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public FailureArtifacts(Path directory, long maxDiskBytes, int maxTextChars, float jpegQuality, int threads, int queueSize) {
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.maxTextChars = maxTextChars;
+        this.jpegQuality = jpegQuality;
+        this.capacity = threads + queueSize;
+        this.slots = new Semaphore(capacity);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "failure-artifacts-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // JVM-wide writer configured from screenshots.directory and artifacts.* keys
+    public static synchronized FailureArtifacts getInstance() {
+        if (instance == null) {
+            instance = new FailureArtifacts(
+                    Paths.get(ConfigReader.get("screenshots.directory", "target/screenshots")),
+                    ConfigReader.getLong("artifacts.max.disk.mb", 200) * 1024 * 1024,
+                    ConfigReader.getInt("artifacts.max.text.kb", 2048) * 1024,
+                    (float) ConfigReader.getDouble("artifacts.jpeg.quality", 0.7),
+                    ConfigReader.getInt("artifacts.threads", 2),
+                    ConfigReader.getInt("artifacts.queue.size", 8));
+            Runtime.getRuntime().addShutdownHook(new Thread(
+                    () -> instance.awaitIdle(Duration.ofSeconds(10)), "failure-artifacts-flush"));
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the browser's state for a failed test and queues it for writing. Returns false, without
+     * touching the browser, when earlier failures still fill the queue.
+     */
+    public boolean capture(String testName, WebDriver driver, List<String> diagnostics) {
+        if (!slots.tryAcquire()) {
+            dropped.incrementAndGet();
+            log.warn("Failure artifacts for {} skipped: {} captures already pending", testName, capacity);
+            return false;
+        }
+        try {
+            String screenshot = screenshot(driver);
+            Capture capture = new Capture(testName, screenshot, isJpegCandidate(screenshot), pageSource(driver), consoleLog(driver), diagnostics);
+            capture.registerWithAllure();
+            executor.execute(() -> {
+                try {
+                    write(capture);
+                } catch (Exception e) {
+                    log.warn("Could not write failure artifacts for {}: {}", testName, e.getMessage());
+                } finally {
+                    slots.release();
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /** Waits for queued captures to be written; false if some were still pending at the timeout. */
+    public boolean awaitIdle(Duration timeout) {
+        try {
+            if (!slots.tryAcquire(capacity, timeout.toMillis(), TimeUnit.MILLISECONDS)) return false;
+            slots.release(capacity);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private static String screenshot(WebDriver driver) {
+        if (!(driver instanceof TakesScreenshot)) return null;
+        try {
+            // Base64 as the driver sent it; decoding waits for the background thread
+            return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+        } catch (RuntimeException e) {
+            log.debug("No screenshot: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Decided on the test thread, since the Allure attachment's type is fixed when it is registered
+    private static boolean isJpegCandidate(String screenshot) {
+        return JPEG_WRITER_AVAILABLE && screenshot != null && screenshot.startsWith(PNG_BASE64_PREFIX);
+    }
+
+    private String pageSource(WebDriver driver) {
+        try {
+            String source = driver.getPageSource();
+            return source == null || source.length() <= maxTextChars ? source : source.substring(0, maxTextChars);
+        } catch (RuntimeException e) {
+            log.debug("No page source: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Chrome only (BrowserFactory enables browser logging); other drivers have no log endpoint
+    private static List<String> consoleLog(WebDriver driver) {
+        try {
+            List<String> lines = new ArrayList<>();
+            for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+                lines.add(Instant.ofEpochMilli(entry.getTimestamp()) + " " + entry.getLevel() + " " + entry.getMessage());
+            }
+            return lines;
+        } catch (RuntimeException e) {
+            log.debug("No browser console log: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Capture capture) throws IOException {
+        Path folder = directory.resolve(FOLDER_STAMP.format(capture.capturedAt) + String.format("-%04d", sequence.incrementAndGet() % 10000)
+                + "-" + sanitize(capture.testName));
+        Files.createDirectories(folder);
+
+        if (capture.screenshot != null) {
+            byte[] png = Base64.getMimeDecoder().decode(capture.screenshot);
+            byte[] jpeg = capture.convertToJpeg ? toJpeg(png) : null;
+            if (jpeg != null) {
+                Files.write(folder.resolve("screenshot.jpg"), jpeg);
+                capture.writeToAllure(Capture.SCREENSHOT, jpeg);
+            } else {
+                Files.write(folder.resolve("screenshot.png"), png);
+                if (capture.convertToJpeg) {
+                    // Registered as JPEG; the PNG is not passed off as one, so Allure shows no screenshot
+                    log.warn("Screenshot for {} could not be re-encoded; kept on disk as screenshot.png only", capture.testName);
+                } else {
+                    capture.writeToAllure(Capture.SCREENSHOT, png);
+                }
+            }
+        }
+        if (capture.pageSource != null) {
+            byte[] html = capture.pageSource.getBytes(StandardCharsets.UTF_8);
+            gzip(folder.resolve("page-source.html.gz"), html);
+            capture.writeToAllure(Capture.PAGE_SOURCE, html);
+        }
+        if (capture.consoleLog != null) {
+            byte[] console = String.join("\n", capture.consoleLog).getBytes(StandardCharsets.UTF_8);
+            gzip(folder.resolve("console.log.gz"), console);
+            capture.writeToAllure(Capture.CONSOLE, console);
+        }
+        if (!capture.diagnostics.isEmpty()) {
+            byte[] text = String.join("\n\n", capture.diagnostics).getBytes(StandardCharsets.UTF_8);
+            gzip(folder.resolve("diagnostics.txt.gz"), text);
+            capture.writeToAllure(Capture.DIAGNOSTICS, text);
+        }
+        log.info("Failure artifacts for {} written to {}", capture.testName, folder);
+        enforceDiskCap(folder);
+    }
+
+    // Full-page PNG screenshots are typically 5-10x smaller as JPEG; null if the PNG cannot be decoded
+    private byte[] toJpeg(byte[] png) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+            if (source == null) return null;
+            BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+            rgb.createGraphics().drawImage(source, 0, 0, java.awt.Color.WHITE, null);
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(png.length / 4);
+            try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+                writer.setOutput(stream);
+                writer.write(null, new IIOImage(rgb, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return out.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Keeping screenshot as PNG: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void gzip(Path file, byte[] content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content);
+        }
+    }
+
+    // Deletes the oldest failure folders until the directory fits the cap; the newest one is always kept
+    private synchronized void enforceDiskCap(Path newest) throws IOException {
+        List<Path> folders;
+        try (Stream<Path> listing = Files.list(directory)) {
+            folders = listing.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        }
+        long total = 0;
+        List<Long> sizes = new ArrayList<>();
+        for (Path folder : folders) {
+            long size = sizeOf(folder);
+            sizes.add(size);
+            total += size;
+        }
+        for (int i = 0; i < folders.size() && total > maxDiskBytes; i++) {
+            Path folder = folders.get(i);
+            if (folder.equals(newest)) continue;
+            deleteRecursively(folder);
+            total -= sizes.get(i);
+            log.debug("Deleted {} to keep failure artifacts under {} bytes", folder, maxDiskBytes);
+        }
+    }
+
+    private static long sizeOf(Path folder) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRecursively(Path folder) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(folder)) {
+            paths = walk.sorted((a, b) -> b.getNameCount() - a.getNameCount()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static String sanitize(String name) {
+        String safe = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        return safe.length() > 80 ? safe.substring(0, 80) : safe;
+    }
+
+    // Everything read from the browser for one failure, plus its reserved Allure attachment sources
+    private static final class Capture {
+        private static final int SCREENSHOT = 0;
+        private static final int PAGE_SOURCE = 1;
+        private static final int CONSOLE = 2;
+        private static final int DIAGNOSTICS = 3;
+
+        private final String testName;
+        private final Instant capturedAt = Instant.now();
+        private final String screenshot;
+        private final boolean convertToJpeg;
+        private final String pageSource;
+        private final List<String> consoleLog;
+        private final List<String> diagnostics;
+        private final String[] allureSources = new String[4];
+        private AllureLifecycle lifecycle;
+
+        private Capture(String testName, String screenshot, boolean convertToJpeg, String pageSource, List<String> consoleLog,
+                        List<String> diagnostics) {
+            this.testName = testName;
+            this.screenshot = screenshot;
+            this.convertToJpeg = convertToJpeg;
+            this.pageSource = pageSource;
+            this.consoleLog = consoleLog;
+            this.diagnostics = diagnostics == null ? new ArrayList<>() : diagnostics;
+        }
+
+        // Must run on the test thread: Allure adds attachments to that thread's open test case
+        private void registerWithAllure() {
+            try {
+                AllureLifecycle current = Allure.getLifecycle();
+                if (!current.getCurrentTestCaseOrStep().isPresent()) return;
+                lifecycle = current;
+                if (screenshot != null) {
+                    allureSources[SCREENSHOT] = convertToJpeg
+                            ? current.prepareAttachment("Screenshot", "image/jpeg", ".jpg")
+                            : current.prepareAttachment("Screenshot", "image/png", ".png");
+                }
+                if (pageSource != null) allureSources[PAGE_SOURCE] = current.prepareAttachment("Page source", "text/html", ".html");
+                if (consoleLog != null) allureSources[CONSOLE] = current.prepareAttachment("Browser console", "text/plain", ".txt");
+                if (!diagnostics.isEmpty()) {
+                    allureSources[DIAGNOSTICS] = current.prepareAttachment("Deferred diagnostics", "text/plain", ".txt");
+                }
+            } catch (RuntimeException e) {
+                lifecycle = null;
+                log.debug("Could not register failure attachments with Allure: {}", e.getMessage());
+            }
+        }
+
+        private void writeToAllure(int kind, byte[] content) {
+            String source = allureSources[kind];
+            if (lifecycle == null || source == null) return;
+            lifecycle.writeAttachment(source, new ByteArrayInputStream(content));
+        }
+    }
+}
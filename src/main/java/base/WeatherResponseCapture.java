@@ -0,0 +1,208 @@
+package base;
+
+import model.WeatherData;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Captures the weather JSON the page itself fetches to render its widget, through the Chrome
+ * DevTools Protocol. Only network events are observed: no request is paused or rewritten. When a
+ * response whose URL contains {@code capture.url.pattern} finishes loading, its body is fetched
+ * and, if it decodes as a /weather reading, becomes the latest {@link WeatherData}. Experimental:
+ * the default pattern (/data/2.5/weather) matches the stub page, while the live openweathermap.org
+ * widget's endpoint and payload have not been verified, so {@code extraction.mode=network} is
+ * opt-in and falls back to script extraction when nothing is captured. One capture is
+ * attached per browser session and detached when the session goes back to the {@link DriverPool}.
+ */
+public final class WeatherResponseCapture implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherResponseCapture.class);
+
+    private static final Map<WebDriver, WeatherResponseCapture> ATTACHED = new IdentityHashMap<>();
+
+    // getResponseBody is a DevTools round trip, so it must not run on the event thread that delivers it
+    private static final ExecutorService BODY_READER = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "weather-capture");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String urlPattern;
+    private final DevTools devTools;
+    // Matched request ID -> its URL
+    private final Map<String, String> matchedRequests = new ConcurrentHashMap<>();
+    private WeatherData latest;
+    private String latestUnits;
+    private long capturedCount;
+
+    // Not attached to a browser: fed only through offer(), e.g. in tests
+    private WeatherResponseCapture(String urlPattern) {
+        this.urlPattern = urlPattern;
+        this.devTools = null;
+    }
+
+    private WeatherResponseCapture(WebDriver driver, String urlPattern) {
+        this.urlPattern = urlPattern;
+        this.devTools = ((HasDevTools) driver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        devTools.send(new Command<>("Network.enable", Collections.emptyMap()));
+        devTools.addListener(new Event<>("Network.responseReceived", input -> input.<Map<String, Object>>read(Json.MAP_TYPE)),
+                event -> {
+                    Object response = event.get("response");
+                    if (!(response instanceof Map)) return;
+                    Object url = ((Map<?, ?>) response).get("url");
+                    Object status = ((Map<?, ?>) response).get("status");
+                    if (url != null && url.toString().contains(urlPattern) && status instanceof Number
+                            && ((Number) status).intValue() == 200) {
+                        matchedRequests.put(String.valueOf(event.get("requestId")), url.toString());
+                    }
+                });
+        devTools.addListener(new Event<>("Network.loadingFinished", input -> input.<Map<String, Object>>read(Json.MAP_TYPE)),
+                event -> {
+                    String requestId = String.valueOf(event.get("requestId"));
+                    String url = matchedRequests.remove(requestId);
+                    if (url != null) BODY_READER.execute(() -> readBody(requestId, url));
+                });
+    }
+
+    /**
+     * The capture for this session, attached on first use. Returns null when the browser has no
+     * DevTools (e.g. Firefox, a remote grid node) or interception could not be enabled.
+     */
+    public static synchronized WeatherResponseCapture attach(WebDriver driver) {
+        WeatherResponseCapture capture = ATTACHED.get(driver);
+        if (capture != null || !(driver instanceof HasDevTools)) return capture;
+        try {
+            capture = new WeatherResponseCapture(driver, ConfigReader.get("capture.url.pattern", "/data/2.5/weather"));
+        } catch (RuntimeException e) {
+            log.warn("Network capture unavailable, UI values will come from the DOM: {}", e.getMessage());
+            return null;
+        }
+        ATTACHED.put(driver, capture);
+        return capture;
+    }
+
+    // A capture without a browser session; responses arrive only through offer()
+    public static WeatherResponseCapture detached(String urlPattern) {
+        return new WeatherResponseCapture(urlPattern);
+    }
+
+    // Stops observing this session's traffic; no-op if nothing is attached
+    public static synchronized void detach(WebDriver driver) {
+        WeatherResponseCapture capture = ATTACHED.remove(driver);
+        if (capture != null) capture.close();
+    }
+
+    // Forgets earlier responses, e.g. before searching for the next city
+    public synchronized void clear() {
+        latest = null;
+        latestUnits = null;
+    }
+
+    /** The latest captured reading, waiting up to {@code timeout} for one to arrive; null if none did. */
+    public synchronized WeatherData await(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long remaining;
+        while (latest == null && (remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                wait(Math.max(1, remaining / 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return latest;
+    }
+
+    // Units the latest reading was requested in (metric, imperial or standard); null before the first capture
+    public synchronized String getLatestUnits() {
+        return latestUnits;
+    }
+
+    public synchronized long getCapturedCount() {
+        return capturedCount;
+    }
+
+    @Override
+    public void close() {
+        if (devTools == null) return;
+        try {
+            devTools.clearListeners();
+            devTools.send(new Command<>("Network.disable", Collections.emptyMap()));
+        } catch (RuntimeException e) {
+            log.debug("Closing network capture failed: {}", e.getMessage());
+        }
+        matchedRequests.clear();
+    }
+
+    // OpenWeather's units query parameter; without one the API answers in standard units (kelvin)
+    public static String unitsOf(String url) {
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            for (String param : url.substring(query + 1).split("&")) {
+                if (param.startsWith("units=")) return param.substring("units=".length()).toLowerCase(Locale.ROOT);
+            }
+        }
+        return "standard";
+    }
+
+    private void readBody(String requestId, String url) {
+        Map<String, Object> result;
+        try {
+            result = devTools.send(new Command<>("Network.getResponseBody", Map.of("requestId", requestId),
+                    input -> input.<Map<String, Object>>read(Json.MAP_TYPE)));
+        } catch (RuntimeException e) {
+            log.debug("Could not read {} response body: {}", urlPattern, e.getMessage());
+            return;
+        }
+        String body = String.valueOf(result.get("body"));
+        offer(url, Boolean.TRUE.equals(result.get("base64Encoded"))
+                ? Base64.getDecoder().decode(body)
+                : body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Takes one matched response body fetched from {@code url}: a body that decodes as a reading
+     * becomes the latest one, in the units the URL asked for; anything else is ignored. Returns
+     * whether the body was taken.
+     */
+    public boolean offer(String url, byte[] body) {
+        WeatherData data;
+        try {
+            data = WeatherData.fromJson(body);
+        } catch (RuntimeException e) {
+            log.debug("Ignoring {} response that is not a weather reading: {}", urlPattern, e.getMessage());
+            return false;
+        }
+        // Any JSON object decodes, e.g. an error or a onecall payload; a /weather reading always has dt
+        if (data.getObservedAt() == 0) {
+            log.debug("Ignoring {} response without an observation time: {}", urlPattern, data);
+            return false;
+        }
+        synchronized (this) {
+            latest = data;
+            latestUnits = unitsOf(url);
+            capturedCount++;
+            notifyAll();
+        }
+        return true;
+    }
+}
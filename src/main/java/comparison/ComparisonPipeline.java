@@ -0,0 +1,191 @@
+package comparison;
+
+import api.WeatherApiClient;
+import metrics.Metrics;
+import metrics.Phase;
+import model.WeatherData;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import pages.WeatherPage;
+import utils.ConfigReader;
+import utils.TemperatureScanner;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reads one city's weather from the API and the UI concurrently. The UI side starts at once on its
+ * own executor; the API fetch runs on a separate executor and is released the moment the UI submits
+ * its search, which is when the page fetches its own reading. Opening the page overlaps with the
+ * API call instead of following it, and both samples are taken within about one round trip of each
+ * other, so differences between them come from the data rather than from when it was read.
+ */
+public class ComparisonPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ComparisonPipeline.class);
+
+    private static final ExecutorService API_EXECUTOR = Executors.newCachedThreadPool(daemonThreads("comparison-api-"));
+    private static final ExecutorService UI_EXECUTOR = Executors.newCachedThreadPool(daemonThreads("comparison-ui-"));
+
+    private final WeatherApiClient apiClient;
+    private final String uiUrl;
+
+    // Fresh API reads on purpose: a cached reading could be minutes older than what the page shows
+    public ComparisonPipeline(WeatherApiClient apiClient) {
+        this(apiClient, ConfigReader.get("ui.url", "https://openweathermap.org"));
+    }
+
+    public ComparisonPipeline(WeatherApiClient apiClient, String uiUrl) {
+        this.apiClient = apiClient;
+        this.uiUrl = uiUrl;
+    }
+
+    /** Compares the city's API reading with what the UI shows in {@code driver}, which must not be used meanwhile. */
+    public ComparisonResult compare(String city, WebDriver driver) {
+        return compare(city, searchStarting -> readUi(city, driver, searchStarting));
+    }
+
+    /**
+     * Runs {@code ui} and the API fetch concurrently and joins them. {@code ui} gets a callback to run
+     * right before it submits its search; the API request is sent then, or when {@code ui} finishes
+     * if it never calls it. Failures on either side are rethrown as they were raised.
+     */
+    public ComparisonResult compare(String city, Function<Runnable, WeatherSample> ui) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<Void> searchStarting = new CompletableFuture<>();
+
+        CompletableFuture<WeatherSample> apiFuture = searchStarting.thenApplyAsync(
+                ignored -> inCallerContext(() -> fetchApi(city)).get(), API_EXECUTOR);
+        CompletableFuture<WeatherSample> uiFuture = CompletableFuture.supplyAsync(inCallerContext(() -> {
+            try {
+                return ui.apply(() -> searchStarting.complete(null));
+            } finally {
+                searchStarting.complete(null);
+            }
+        }), UI_EXECUTOR);
+
+        WeatherSample uiSample = join(uiFuture);
+        WeatherSample apiSample = join(apiFuture);
+        long elapsed = System.nanoTime() - startNanos;
+
+        ComparisonResult result = new ComparisonResult(city, apiSample, uiSample, Duration.ofNanos(elapsed));
+        Metrics.record(Phase.COMPARISON, elapsed);
+        Metrics.record(Phase.COMPARISON_SKEW, result.getSkew().toNanos());
+        log.info("{}: compared in {} ms, API/UI skew {} ms", city, elapsed / 1_000_000, result.getSkew().toMillis());
+        if (!result.isSameObservation() && uiSample.getObservedAt() != 0) {
+            log.info("{}: API and UI report different observations ({} vs {})",
+                    city, apiSample.getObservedAt(), uiSample.getObservedAt());
+        }
+        return result;
+    }
+
+    private WeatherSample fetchApi(String city) {
+        Instant requestedAt = Instant.now();
+        WeatherData data = apiClient.getWeather(city);
+        return WeatherSample.fromApi(data, requestedAt, Instant.now());
+    }
+
+    private WeatherSample readUi(String city, WebDriver driver, Runnable searchStarting) {
+        WeatherPage page = new WeatherPage(driver);
+        page.open(uiUrl);
+        try {
+            page.waitForPageSettled();
+            page.removeOverlaysAndWait();
+        } catch (Exception e) {
+            log.info("Initial page setup: {}", e.getMessage());
+        }
+
+        searchStarting.run();
+        Instant requestedAt = Instant.now();
+        page.searchCity(city);
+        Instant capturedAt = Instant.now();
+
+        WeatherData captured = page.getCapturedWeather();
+        double temperature = readTemperature(page, driver);
+        String condition = readCondition(page);
+        return new WeatherSample(WeatherSample.Source.UI, temperature, condition,
+                captured == null ? null : captured.getDescription(),
+                captured == null ? 0 : captured.getObservedAt(), requestedAt, capturedAt);
+    }
+
+    private static double readTemperature(WeatherPage page, WebDriver driver) {
+        try {
+            String text = page.getTemperature();
+            if (text != null && !text.equals("N/A")) {
+                double temperature = TemperatureScanner.parse(text);
+                if (!Double.isNaN(temperature)) return temperature;
+            }
+        } catch (Exception e) {
+            log.debug("Page object could not read the temperature: {}", e.getMessage());
+        }
+
+        // The page object has already tried every locator; only its text may not have parsed
+        TemperatureScanner.Match match = TemperatureScanner.find(driver.getPageSource());
+        if (match != null) {
+            log.info("Temperature read from page source");
+            return match.getValue();
+        }
+        throw new IllegalStateException("Could not extract temperature from UI using any strategy");
+    }
+
+    // "N/A" when the page shows no usable condition
+    private static String readCondition(WeatherPage page) {
+        try {
+            String condition = page.getCondition();
+            if (condition != null && !condition.equals("N/A")) {
+                String lower = condition.toLowerCase(Locale.ROOT);
+                if (!lower.contains("humidity") && !lower.contains("pressure")) return condition;
+            }
+        } catch (Exception e) {
+            log.debug("Page object could not read the condition: {}", e.getMessage());
+        }
+        return "N/A";
+    }
+
+    // Worker threads report metrics and log lines under the calling test
+    private static <T> Supplier<T> inCallerContext(Supplier<T> task) {
+        Supplier<T> scoped = Metrics.inCurrentScope(task);
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        if (mdc == null) return scoped;
+        return () -> {
+            MDC.setContextMap(mdc);
+            try {
+                return scoped.get();
+            } finally {
+                MDC.clear();
+            }
+        };
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
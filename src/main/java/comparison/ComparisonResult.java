@@ -0,0 +1,51 @@
+package comparison;
+
+import java.time.Duration;
+
+/** The API and UI samples of one comparison and how long it took end to end. */
+public final class ComparisonResult {
+
+    private final String city;
+    private final WeatherSample api;
+    private final WeatherSample ui;
+    private final Duration wallClock;
+
+    public ComparisonResult(String city, WeatherSample api, WeatherSample ui, Duration wallClock) {
+        this.city = city;
+        this.api = api;
+        this.ui = ui;
+        this.wallClock = wallClock;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public WeatherSample getApi() {
+        return api;
+    }
+
+    public WeatherSample getUi() {
+        return ui;
+    }
+
+    public Duration getWallClock() {
+        return wallClock;
+    }
+
+    // Time between the two samples becoming available, regardless of which came first
+    public Duration getSkew() {
+        return Duration.between(api.getCapturedAt(), ui.getCapturedAt()).abs();
+    }
+
+    // True when both sides reported the same OpenWeather observation; false if either did not report one
+    public boolean isSameObservation() {
+        return api.getObservedAt() != 0 && api.getObservedAt() == ui.getObservedAt();
+    }
+
+    @Override
+    public String toString() {
+        return "Comparison{" + city + ", wallClock=" + wallClock.toMillis() + "ms, skew=" + getSkew().toMillis()
+                + "ms, api=" + api + ", ui=" + ui + '}';
+    }
+}
@@ -0,0 +1,77 @@
+package comparison;
+
+import model.WeatherData;
+
+import java.time.Instant;
+
+/** One reading of a city's weather from the API or the UI, with when it was asked for and obtained. */
+public final class WeatherSample {
+
+    public enum Source {
+        API, UI
+    }
+
+    private final Source source;
+    private final double temperature;
+    private final String condition;
+    private final String description;
+    private final long observedAt;
+    private final Instant requestedAt;
+    private final Instant capturedAt;
+
+    /**
+     * @param observedAt  OpenWeather's observation time (epoch seconds), 0 when the source did not expose it
+     * @param requestedAt when the fetch or search was sent
+     * @param capturedAt  when the value became available to the test
+     */
+    public WeatherSample(Source source, double temperature, String condition, String description,
+                         long observedAt, Instant requestedAt, Instant capturedAt) {
+        this.source = source;
+        this.temperature = temperature;
+        this.condition = condition;
+        this.description = description;
+        this.observedAt = observedAt;
+        this.requestedAt = requestedAt;
+        this.capturedAt = capturedAt;
+    }
+
+    public static WeatherSample fromApi(WeatherData data, Instant requestedAt, Instant capturedAt) {
+        return new WeatherSample(Source.API, data.getTemperature(), data.getCondition(), data.getDescription(),
+                data.getObservedAt(), requestedAt, capturedAt);
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    // null when the UI only showed the short condition
+    public String getDescription() {
+        return description;
+    }
+
+    public long getObservedAt() {
+        return observedAt;
+    }
+
+    public Instant getRequestedAt() {
+        return requestedAt;
+    }
+
+    public Instant getCapturedAt() {
+        return capturedAt;
+    }
+
+    @Override
+    public String toString() {
+        return source + "{temp=" + temperature + ", condition=" + condition + ", description=" + description
+                + ", observedAt=" + observedAt + ", requestedAt=" + requestedAt + ", capturedAt=" + capturedAt + '}';
+    }
+}
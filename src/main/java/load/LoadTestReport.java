@@ -0,0 +1,168 @@
+package load;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import metrics.LatencyHistogram;
+import utils.ConfigReader;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Outcome of one {@link LoadTestRunner} run. Latencies are in milliseconds. */
+public class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final LoadTestRunner.Model model;
+    private final double targetRps;
+    private final int concurrency;
+    private final Duration elapsed;
+    private final long succeeded;
+    private final Map<String, Long> errors;
+    private final LatencyHistogram responseTime;
+    private final LatencyHistogram serviceTime;
+    private final long maxInFlight;
+
+    LoadTestReport(LoadTestRunner.Model model, double targetRps, int concurrency, Duration elapsed, long succeeded,
+                   Map<String, Long> errors, LatencyHistogram responseTime, LatencyHistogram serviceTime, long maxInFlight) {
+        this.model = model;
+        this.targetRps = targetRps;
+        this.concurrency = concurrency;
+        this.elapsed = elapsed;
+        this.succeeded = succeeded;
+        this.errors = Collections.unmodifiableMap(new TreeMap<>(errors));
+        this.responseTime = responseTime;
+        this.serviceTime = serviceTime;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public long getCompleted() {
+        return succeeded + getFailed();
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Failures by kind, e.g. "http 429" or "ConnectException"
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+
+    public double getErrorRate() {
+        long completed = getCompleted();
+        return completed == 0 ? 0 : (double) getFailed() / completed;
+    }
+
+    public double getThroughput() {
+        return getCompleted() / (elapsed.toNanos() / 1e9);
+    }
+
+    // Scheduled send to response: includes time spent queued behind slow requests
+    public LatencyHistogram getResponseTime() {
+        return responseTime;
+    }
+
+    // Actual send to response: what the server took for the requests it was given
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    // Open model only: peak requests dispatched but not yet answered
+    public long getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    // Writes load-<UTC timestamp>.json next to the latency summaries in metrics.directory
+    public Path writeJson() throws IOException {
+        Path dir = Paths.get(ConfigReader.get("metrics.directory", "target/metrics"));
+        Files.createDirectories(dir);
+        Path file = dir.resolve("load-" + FILE_STAMP.format(Instant.now()) + ".json");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonGenerator json = new JsonFactory().createGenerator(out)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeStringField("model", model.name().toLowerCase());
+            json.writeNumberField("targetRps", targetRps);
+            json.writeNumberField("concurrency", concurrency);
+            json.writeNumberField("elapsedSeconds", elapsed.toMillis() / 1000.0);
+            json.writeNumberField("completed", getCompleted());
+            json.writeNumberField("succeeded", succeeded);
+            json.writeNumberField("throughputRps", round(getThroughput()));
+            json.writeNumberField("errorRate", round(getErrorRate()));
+            json.writeObjectFieldStart("errors");
+            for (Map.Entry<String, Long> error : errors.entrySet()) {
+                json.writeNumberField(error.getKey(), error.getValue());
+            }
+            json.writeEndObject();
+            json.writeNumberField("maxInFlight", maxInFlight);
+            writeLatency(json, "responseTime", responseTime);
+            writeLatency(json, "serviceTime", serviceTime);
+            json.writeEndObject();
+        }
+        return file;
+    }
+
+    private static void writeLatency(JsonGenerator json, String name, LatencyHistogram histogram) throws IOException {
+        json.writeObjectFieldStart(name);
+        for (double percentile : PERCENTILES) {
+            json.writeNumberField("p" + label(percentile) + "Ms", round(histogram.percentileNanos(percentile) / 1e6));
+        }
+        json.writeNumberField("maxMs", round(histogram.getMaxNanos() / 1e6));
+        json.writeNumberField("meanMs", round(histogram.getMeanNanos() / 1e6));
+        json.writeEndObject();
+    }
+
+    // 50 -> "50", 99.9 -> "99.9"
+    private static String display(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    // JSON field fragment: 99.9 -> "99_9"
+    private static String label(double percentile) {
+        return display(percentile).replace('.', '_');
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Load test (%s model, target %.1f rps, concurrency %d) over %.1fs%n",
+                model.name().toLowerCase(), targetRps, concurrency, elapsed.toMillis() / 1000.0));
+        out.append(String.format("  completed %d, succeeded %d, error rate %.2f%%, throughput %.1f rps%n",
+                getCompleted(), succeeded, getErrorRate() * 100, getThroughput()));
+        if (!errors.isEmpty()) out.append("  errors ").append(errors).append(System.lineSeparator());
+        if (model == LoadTestRunner.Model.OPEN) out.append("  max in flight ").append(maxInFlight).append(System.lineSeparator());
+        out.append(String.format("  %-14s", "percentile"));
+        for (double percentile : PERCENTILES) out.append(String.format("%10s", "p" + display(percentile)));
+        out.append(String.format("%10s%n", "max"));
+        appendRow(out, "response (ms)", responseTime);
+        appendRow(out, "service (ms)", serviceTime);
+        return out.toString();
+    }
+
+    private static void appendRow(StringBuilder out, String name, LatencyHistogram histogram) {
+        out.append(String.format("  %-14s", name));
+        for (double percentile : PERCENTILES) out.append(String.format("%10.1f", histogram.percentileNanos(percentile) / 1e6));
+        out.append(String.format("%10.1f%n", histogram.getMaxNanos() / 1e6));
+    }
+}
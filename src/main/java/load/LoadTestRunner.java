@@ -0,0 +1,260 @@
+package load;
+
+import api.ResiliencePolicy;
+import api.WeatherApiClient;
+import api.WeatherApiException;
+import metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stub.OpenWeatherStubServer;
+import utils.ConfigReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Drives {@link WeatherApiClient} under sustained load and reports throughput, errors and latency.
+ *
+ * <p>Open model: requests are scheduled at a fixed rate regardless of how fast the API answers.
+ * Closed model: a fixed number of workers each wait for their previous response (optionally
+ * paced to a rate). Response time is measured from when a request was <em>scheduled</em> to be
+ * sent, so a stalled server is charged for the requests it delayed, not just the ones it served
+ * (coordinated-omission correction). Service time, measured from the actual send, is reported
+ * alongside for comparison. An unpaced closed model has no schedule, so there the two are equal.
+ */
+public class LoadTestRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    public enum Model {
+        OPEN, CLOSED
+    }
+
+    private Model model = Model.OPEN;
+    private double targetRps = 20;
+    private int concurrency = 8;
+    private Duration duration = Duration.ofSeconds(30);
+    private Duration warmup = Duration.ZERO;
+    private Duration drainTimeout = Duration.ofSeconds(30);
+    private List<String> cities = Arrays.asList("Jakarta", "London", "Tokyo");
+
+    private final WeatherApiClient client;
+
+    public LoadTestRunner(WeatherApiClient client) {
+        this.client = client;
+    }
+
+    // Builds a runner from the load.* keys in config.properties
+    public static LoadTestRunner fromConfig(WeatherApiClient client) {
+        return new LoadTestRunner(client)
+                .withModel(Model.valueOf(ConfigReader.get("load.model", "open").toUpperCase()))
+                .withTargetRps(ConfigReader.getDouble("load.rps", 20))
+                .withConcurrency(ConfigReader.getInt("load.concurrency", 8))
+                .withDuration(Duration.ofSeconds(ConfigReader.getLong("load.duration.seconds", 30)))
+                .withWarmup(Duration.ofSeconds(ConfigReader.getLong("load.warmup.seconds", 0)))
+                .withCities(Arrays.asList(ConfigReader.get("load.cities", "Jakarta,London,Tokyo").split(",")));
+    }
+
+    public LoadTestRunner withModel(Model model) {
+        this.model = model;
+        return this;
+    }
+
+    // Open model: arrival rate. Closed model: combined pacing of all workers; 0 means unpaced
+    public LoadTestRunner withTargetRps(double targetRps) {
+        this.targetRps = Math.max(0, targetRps);
+        return this;
+    }
+
+    // Closed model: number of workers. Open model: most requests in flight at once
+    public LoadTestRunner withConcurrency(int concurrency) {
+        if (concurrency < 1) throw new IllegalArgumentException("Concurrency must be at least 1, was " + concurrency);
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    public LoadTestRunner withDuration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    // Requests scheduled during the warmup are sent but not recorded
+    public LoadTestRunner withWarmup(Duration warmup) {
+        this.warmup = warmup;
+        return this;
+    }
+
+    public LoadTestRunner withDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+        return this;
+    }
+
+    public LoadTestRunner withCities(List<String> cities) {
+        List<String> trimmed = cities.stream().map(String::trim).filter(c -> !c.isEmpty()).collect(Collectors.toList());
+        if (trimmed.isEmpty()) throw new IllegalArgumentException("At least one city is required");
+        this.cities = trimmed;
+        return this;
+    }
+
+    public LoadTestReport run() {
+        if (model == Model.OPEN && targetRps <= 0) {
+            throw new IllegalStateException("The open model needs load.rps > 0");
+        }
+        Recorder recorder = new Recorder();
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+        log.info("Load test: {} model, {} rps, concurrency {}, {}s (+{}s warmup), cities {}",
+                model, targetRps, concurrency, duration.getSeconds(), warmup.getSeconds(), cities);
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "load-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            if (model == Model.OPEN) {
+                runOpen(workers, recorder, start, recordFrom, end);
+            } else {
+                runClosed(workers, recorder, start, recordFrom, end);
+            }
+            workers.shutdown();
+            if (!workers.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Requests still in flight after the {}s drain timeout were abandoned", drainTimeout.getSeconds());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+        }
+        // Recording window plus the drain of requests scheduled inside it
+        Duration elapsed = Duration.ofNanos(Math.max(1, System.nanoTime() - recordFrom));
+        return recorder.report(model, targetRps, concurrency, elapsed);
+    }
+
+    // One dispatcher schedules arrivals on a fixed timeline; workers only send
+    private void runOpen(ExecutorService workers, Recorder recorder, long start, long recordFrom, long end) {
+        long interval = (long) (1_000_000_000L / targetRps);
+        AtomicInteger inFlight = new AtomicInteger();
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) break;
+            parkUntil(intended);
+            // Beyond the concurrency cap requests queue; the wait still counts against response time
+            recorder.inFlight(inFlight.incrementAndGet());
+            String city = cities.get((int) (i % cities.size()));
+            workers.execute(() -> {
+                try {
+                    send(recorder, city, intended, intended >= recordFrom);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    // Each worker keeps its own schedule; an unpaced worker's next request is due when the previous one ends
+    private void runClosed(ExecutorService workers, Recorder recorder, long start, long recordFrom, long end) {
+        long interval = targetRps > 0 ? (long) (1_000_000_000L * concurrency / targetRps) : 0;
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            workers.execute(() -> {
+                long intended = start + (interval > 0 ? interval * worker / concurrency : 0);
+                for (long i = 0; intended < end && !Thread.currentThread().isInterrupted(); i++) {
+                    if (interval > 0) parkUntil(intended);
+                    else intended = System.nanoTime();
+                    send(recorder, cities.get((int) ((worker + i * concurrency) % cities.size())), intended, intended >= recordFrom);
+                    intended += interval;
+                }
+            });
+        }
+    }
+
+    private void send(Recorder recorder, String city, long intended, boolean record) {
+        long sent = System.nanoTime();
+        String error = null;
+        try {
+            client.getWeather(city);
+        } catch (WeatherApiException e) {
+            error = "http " + e.getStatusCode();
+        } catch (UncheckedIOException e) {
+            error = e.getCause().getClass().getSimpleName();
+        } catch (RuntimeException e) {
+            error = e.getClass().getSimpleName();
+        }
+        long done = System.nanoTime();
+        if (record) recorder.record(done - intended, done - sent, error);
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        long wait;
+        while ((wait = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    // Thread-safe sink for one run's samples
+    private static final class Recorder {
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private final LongAdder succeeded = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final AtomicLong maxInFlight = new AtomicLong();
+
+        void record(long responseNanos, long serviceNanos, String error) {
+            responseTime.record(responseNanos);
+            serviceTime.record(serviceNanos);
+            if (error == null) succeeded.increment();
+            else errors.computeIfAbsent(error, k -> new LongAdder()).increment();
+        }
+
+        void inFlight(long count) {
+            maxInFlight.accumulateAndGet(count, Math::max);
+        }
+
+        LoadTestReport report(Model model, double targetRps, int concurrency, Duration elapsed) {
+            Map<String, Long> errorCounts = new ConcurrentHashMap<>();
+            errors.forEach((kind, count) -> errorCounts.put(kind, count.sum()));
+            return new LoadTestReport(model, targetRps, concurrency, elapsed, succeeded.sum(), errorCounts,
+                    responseTime, serviceTime, maxInFlight.get());
+        }
+    }
+
+    // Standalone mode: mvn exec:java -Dexec.mainClass=load.LoadTestRunner (load.stub=true runs fully offline)
+    public static void main(String[] args) throws IOException {
+        OpenWeatherStubServer stub = ConfigReader.getBoolean("load.stub", true) ? OpenWeatherStubServer.fromConfig().start() : null;
+        boolean passed;
+        try {
+            String apiKey = ConfigReader.get("api.key", "stub-key");
+            String baseUrl = stub != null ? stub.getApiBaseUrl() : ConfigReader.get("api.base.url", WeatherApiClient.DEFAULT_BASE_URL);
+            ResiliencePolicy policy = ResiliencePolicy.fromConfig(apiKey, baseUrl);
+            // The stub has no quota of its own (stub.rate.limit.per.second emulates one), so don't cap the offered load
+            if (stub != null) policy.withRateLimiter(null);
+            WeatherApiClient client = new WeatherApiClient(apiKey, baseUrl, WeatherApiClient.DEFAULT_MAX_CONCURRENCY, policy);
+            LoadTestReport report = fromConfig(client).run();
+            System.out.println(report);
+            log.info("Load report written to {}", report.writeJson());
+
+            double maxErrorRate = ConfigReader.getDouble("load.max.error.rate", 1.0);
+            passed = report.getErrorRate() <= maxErrorRate;
+            if (!passed) log.error("Error rate {} exceeds load.max.error.rate {}", report.getErrorRate(), maxErrorRate);
+        } finally {
+            if (stub != null) stub.close();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,220 @@
+package metrics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram over nanosecond samples. Buckets are log-linear: every power of
+ * two is split into {@value #SUB_BUCKETS} equal slices, so any recorded value is reported within
+ * about 6% of its true size while the whole range (1ns to centuries) fits in a fixed array.
+ * Histograms with the same layout merge by adding bucket counts, which lets per-thread or
+ * per-test histograms be rolled up into run totals without keeping raw samples.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+        min.accumulate(value);
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        record(unit.toNanos(duration));
+    }
+
+    // Adds another histogram's samples to this one
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) counts.addAndGet(i, count);
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        if (other.getCount() > 0) {
+            max.accumulate(other.max.get());
+            min.accumulate(other.min.get());
+        }
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public long getMaxNanos() {
+        return getCount() == 0 ? 0 : max.get();
+    }
+
+    public long getMinNanos() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Value at the given percentile (0-100), reported as the upper edge of its bucket and never
+     * above the recorded maximum. Returns 0 for an empty histogram.
+     */
+    public long percentileNanos(double percentile) {
+        long count = getCount();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.max(getMinNanos(), Math.min(upperBound(i), getMaxNanos()));
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public Summary summarize() {
+        return new Summary(getCount(), toMillis(percentileNanos(50)), toMillis(percentileNanos(95)),
+                toMillis(percentileNanos(99)), toMillis(getMaxNanos()), getMeanNanos() / 1_000_000.0);
+    }
+
+    // Writes the raw bucket counts (sparse) with sum, min and max, so another process can merge this histogram
+    void writeBuckets(JsonGenerator json) throws IOException {
+        json.writeNumberField("sumNs", sum.sum());
+        json.writeNumberField("minNs", getMinNanos());
+        json.writeNumberField("maxNs", getMaxNanos());
+        json.writeObjectFieldStart("buckets");
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts.get(i);
+            if (count != 0) json.writeNumberField(Integer.toString(i), count);
+        }
+        json.writeEndObject();
+    }
+
+    // Reads what writeBuckets wrote; the parser is on the enclosing START_OBJECT and other fields are skipped
+    static LatencyHistogram readBuckets(JsonParser parser) throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long sumNs = 0;
+        long minNs = 0;
+        long maxNs = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("buckets".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    int bucket = Integer.parseInt(parser.getCurrentName());
+                    parser.nextToken();
+                    if (bucket < 0 || bucket >= BUCKETS) continue;
+                    histogram.counts.addAndGet(bucket, parser.getLongValue());
+                    histogram.total.add(parser.getLongValue());
+                }
+            } else if ("sumNs".equals(field)) {
+                sumNs = parser.getLongValue();
+            } else if ("minNs".equals(field)) {
+                minNs = parser.getLongValue();
+            } else if ("maxNs".equals(field)) {
+                maxNs = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (histogram.getCount() > 0) {
+            histogram.sum.add(sumNs);
+            histogram.min.accumulate(minNs);
+            histogram.max.accumulate(maxNs);
+        }
+        return histogram;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value that falls into the bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long lower = (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return lower + width - 1 < 0 ? Long.MAX_VALUE : lower + width - 1;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return summarize().toString();
+    }
+
+    /** Point-in-time percentiles in milliseconds. */
+    public static final class Summary {
+        private final long count;
+        private final double p50;
+        private final double p95;
+        private final double p99;
+        private final double max;
+        private final double mean;
+
+        Summary(long count, double p50, double p95, double p99, double max, double mean) {
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getP50Millis() {
+            return p50;
+        }
+
+        public double getP95Millis() {
+            return p95;
+        }
+
+        public double getP99Millis() {
+            return p99;
+        }
+
+        public double getMaxMillis() {
+            return max;
+        }
+
+        public double getMeanMillis() {
+            return mean;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms", count, p50, p95, p99, max);
+        }
+    }
+}
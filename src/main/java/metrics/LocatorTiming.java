@@ -0,0 +1,42 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Cost of every attempt made with one locator, split into hits and misses. */
+public class LocatorTiming {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void record(long nanos, boolean matched) {
+        latency.record(nanos);
+        if (matched) hits.increment();
+        else misses.increment();
+    }
+
+    void merge(LocatorTiming other) {
+        latency.merge(other.latency);
+        hits.add(other.getHits());
+        misses.add(other.getMisses());
+    }
+
+    // Adds timings read back from another run's summary
+    void add(LatencyHistogram attempts, long hitCount, long missCount) {
+        latency.merge(attempts);
+        hits.add(hitCount);
+        misses.add(missCount);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,210 @@
+package metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named phase histograms plus per-locator timings and event counters. One set holds the run totals and each test
+ * gets its own, so a test's report only shows what that test spent.
+ */
+public class MetricSet {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Map<String, LatencyHistogram> phases = new ConcurrentHashMap<>();
+    private final Map<String, LocatorTiming> locators = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public void record(String phase, long nanos) {
+        phases.computeIfAbsent(phase, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    public void recordLocator(String locator, long nanos, boolean matched) {
+        locators.computeIfAbsent(locator, k -> new LocatorTiming()).record(nanos, matched);
+    }
+
+    public void increment(String counter) {
+        counters.computeIfAbsent(counter, k -> new LongAdder()).increment();
+    }
+
+    public void merge(MetricSet other) {
+        other.phases.forEach((name, histogram) -> phases.computeIfAbsent(name, k -> new LatencyHistogram()).merge(histogram));
+        other.locators.forEach((name, timing) -> locators.computeIfAbsent(name, k -> new LocatorTiming()).merge(timing));
+        other.counters.forEach((name, count) -> counters.computeIfAbsent(name, k -> new LongAdder()).add(count.sum()));
+    }
+
+    public LatencyHistogram getPhase(String phase) {
+        return phases.get(phase);
+    }
+
+    public LocatorTiming getLocator(String locator) {
+        return locators.get(locator);
+    }
+
+    // Zero for a counter that was never incremented
+    public long getCounter(String counter) {
+        LongAdder count = counters.get(counter);
+        return count == null ? 0 : count.sum();
+    }
+
+    public boolean isEmpty() {
+        return phases.isEmpty() && locators.isEmpty() && counters.isEmpty();
+    }
+
+    public void clear() {
+        phases.clear();
+        locators.clear();
+        counters.clear();
+    }
+
+    // Writes {"phases": {name: summary}, "locators": {name: summary + hits/misses}, "counters": {name: n}} with keys sorted
+    public void writeJson(JsonGenerator json) throws IOException {
+        writeJson(json, false);
+    }
+
+    /**
+     * As {@link #writeJson(JsonGenerator)}; with {@code withHistograms} each summary also carries
+     * its raw histogram, which {@link #readJson(JsonParser)} reads back for merging across runs.
+     */
+    public void writeJson(JsonGenerator json, boolean withHistograms) throws IOException {
+        json.writeObjectFieldStart("phases");
+        for (Map.Entry<String, LatencyHistogram> phase : new TreeMap<>(phases).entrySet()) {
+            json.writeObjectFieldStart(phase.getKey());
+            writeSummary(json, phase.getValue(), withHistograms);
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+
+        json.writeObjectFieldStart("locators");
+        for (Map.Entry<String, LocatorTiming> locator : new TreeMap<>(locators).entrySet()) {
+            json.writeObjectFieldStart(locator.getKey());
+            json.writeNumberField("hits", locator.getValue().getHits());
+            json.writeNumberField("misses", locator.getValue().getMisses());
+            writeSummary(json, locator.getValue().getLatency(), withHistograms);
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+
+        json.writeObjectFieldStart("counters");
+        for (Map.Entry<String, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+            json.writeNumberField(counter.getKey(), counter.getValue().sum());
+        }
+        json.writeEndObject();
+    }
+
+    public void writeJson(Writer out) throws IOException {
+        try (JsonGenerator json = JSON.createGenerator(out)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            writeJson(json);
+            json.writeEndObject();
+        }
+    }
+
+    public String toJson() {
+        StringWriter out = new StringWriter();
+        try {
+            writeJson(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    static JsonFactory jsonFactory() {
+        return JSON;
+    }
+
+    /**
+     * Reads a set written with histograms. The parser must be on the START_OBJECT that holds the
+     * "phases", "locators" and "counters" fields; other fields are skipped, and summaries written
+     * without histograms come back empty.
+     */
+    public static MetricSet readJson(JsonParser parser) throws IOException {
+        MetricSet set = new MetricSet();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) continue;
+            switch (field) {
+                case "phases":
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.getCurrentName();
+                        parser.nextToken();
+                        set.phases.computeIfAbsent(name, k -> new LatencyHistogram()).merge(readHistogram(parser, null));
+                    }
+                    break;
+                case "locators":
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.getCurrentName();
+                        parser.nextToken();
+                        long[] hitsAndMisses = new long[2];
+                        LatencyHistogram latency = readHistogram(parser, hitsAndMisses);
+                        set.locators.computeIfAbsent(name, k -> new LocatorTiming()).add(latency, hitsAndMisses[0], hitsAndMisses[1]);
+                    }
+                    break;
+                case "counters":
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.getCurrentName();
+                        parser.nextToken();
+                        set.counters.computeIfAbsent(name, k -> new LongAdder()).add(parser.getLongValue());
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return set;
+    }
+
+    // One summary object: its "histogram" field, plus hits and misses for a locator
+    private static LatencyHistogram readHistogram(JsonParser parser, long[] hitsAndMisses) throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("histogram".equals(field) && value == JsonToken.START_OBJECT) {
+                histogram = LatencyHistogram.readBuckets(parser);
+            } else if (hitsAndMisses != null && "hits".equals(field)) {
+                hitsAndMisses[0] = parser.getLongValue();
+            } else if (hitsAndMisses != null && "misses".equals(field)) {
+                hitsAndMisses[1] = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return histogram;
+    }
+
+    private static void writeSummary(JsonGenerator json, LatencyHistogram histogram, boolean withHistogram) throws IOException {
+        writeSummary(json, histogram.summarize());
+        if (withHistogram) {
+            json.writeObjectFieldStart("histogram");
+            histogram.writeBuckets(json);
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeSummary(JsonGenerator json, LatencyHistogram.Summary summary) throws IOException {
+        json.writeNumberField("count", summary.getCount());
+        json.writeNumberField("p50Ms", round(summary.getP50Millis()));
+        json.writeNumberField("p95Ms", round(summary.getP95Millis()));
+        json.writeNumberField("p99Ms", round(summary.getP99Millis()));
+        json.writeNumberField("maxMs", round(summary.getMaxMillis()));
+        json.writeNumberField("meanMs", round(summary.getMeanMillis()));
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 1000) / 1000.0;
+    }
+}
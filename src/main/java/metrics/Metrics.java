@@ -0,0 +1,164 @@
+package metrics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openqa.selenium.By;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scheduling.Shard;
+import utils.ConfigReader;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide latency and event-count recorder. Every sample goes into the run totals and, when the calling
+ * thread has an open scope (one per test, see {@link MetricsListener}), into that scope as well.
+ * Recording is a few atomic increments, so instrumented code can call it unconditionally.
+ */
+public final class Metrics {
+
+    private static final Logger log = LoggerFactory.getLogger(Metrics.class);
+
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private static final MetricSet RUN = new MetricSet();
+    private static final ThreadLocal<MetricSet> SCOPE = new ThreadLocal<>();
+    private static volatile Instant runStartedAt = Instant.now();
+
+    private Metrics() {
+    }
+
+    public static Timer start(Phase phase) {
+        return new Timer(phase.getKey());
+    }
+
+    public static Timer start(String phase) {
+        return new Timer(phase);
+    }
+
+    public static void record(Phase phase, long nanos) {
+        record(phase.getKey(), nanos);
+    }
+
+    public static void record(String phase, long nanos) {
+        RUN.record(phase, nanos);
+        MetricSet scope = SCOPE.get();
+        if (scope != null) scope.record(phase, nanos);
+    }
+
+    // One attempt with one locator, whether or not it matched
+    public static void recordLocator(By locator, long nanos, boolean matched) {
+        String key = String.valueOf(locator);
+        RUN.recordLocator(key, nanos, matched);
+        MetricSet scope = SCOPE.get();
+        if (scope != null) scope.recordLocator(key, nanos, matched);
+    }
+
+    // Counts one event, e.g. a throttled or retried API call
+    public static void increment(String counter) {
+        RUN.increment(counter);
+        MetricSet scope = SCOPE.get();
+        if (scope != null) scope.increment(counter);
+    }
+
+    // Starts collecting the calling thread's samples separately; no-op if a scope is already open
+    public static void openScope() {
+        if (SCOPE.get() == null) SCOPE.set(new MetricSet());
+    }
+
+    // Ends the calling thread's scope and returns what it collected, or null if none was open
+    public static MetricSet closeScope() {
+        MetricSet scope = SCOPE.get();
+        SCOPE.remove();
+        return scope;
+    }
+
+    // Wraps work handed to another thread so its samples still land in the calling thread's scope
+    public static <T> Supplier<T> inCurrentScope(Supplier<T> task) {
+        MetricSet scope = SCOPE.get();
+        if (scope == null) return task;
+        return () -> {
+            MetricSet previous = SCOPE.get();
+            SCOPE.set(scope);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) SCOPE.remove();
+                else SCOPE.set(previous);
+            }
+        };
+    }
+
+    public static MetricSet run() {
+        return RUN;
+    }
+
+    public static void reset() {
+        RUN.clear();
+        runStartedAt = Instant.now();
+    }
+
+    /**
+     * Writes the run totals to {@code metrics.directory} (default target/metrics) as
+     * metrics-&lt;UTC timestamp&gt;.json, so successive runs can be compared. A shard's file is
+     * named metrics-&lt;timestamp&gt;-shard-&lt;i&gt;-of-&lt;n&gt;.json. Raw histograms are included so
+     * {@code scheduling.ShardMerger} can combine shards into exact run-wide percentiles.
+     */
+    public static Path writeRunSummary(String runName) throws IOException {
+        Path dir = Paths.get(ConfigReader.get("metrics.directory", "target/metrics"));
+        Files.createDirectories(dir);
+        Instant finishedAt = Instant.now();
+        Shard shard = Shard.current();
+        Path file = dir.resolve("metrics-" + FILE_STAMP.format(finishedAt)
+                + (shard.isSharded() ? "-" + shard.label() : "") + ".json");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonGenerator json = MetricSet.jsonFactory().createGenerator(out)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeStringField("run", runName);
+            if (shard.isSharded()) {
+                json.writeNumberField("shardIndex", shard.getIndex());
+                json.writeNumberField("shardCount", shard.getCount());
+            }
+            json.writeStringField("startedAt", runStartedAt.toString());
+            json.writeStringField("finishedAt", finishedAt.toString());
+            RUN.writeJson(json, true);
+            json.writeEndObject();
+        }
+        log.info("Latency summary written to {}", file);
+        return file;
+    }
+
+    /** Measures one phase; use with try-with-resources. */
+    public static final class Timer implements AutoCloseable {
+        private final String phase;
+        private final long startNanos = System.nanoTime();
+        private boolean stopped;
+
+        private Timer(String phase) {
+            this.phase = phase;
+        }
+
+        public long stop() {
+            long elapsed = System.nanoTime() - startNanos;
+            if (!stopped) {
+                stopped = true;
+                record(phase, elapsed);
+            }
+            return elapsed;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+}
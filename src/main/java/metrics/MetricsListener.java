@@ -0,0 +1,55 @@
+package metrics;
+
+import io.qameta.allure.Allure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+/**
+ * Attaches each test's phase and locator latencies to its Allure result and writes the run
+ * totals as JSON when the suite finishes. The per-test scope opens at {@code @BeforeMethod} so
+ * the browser lease is counted against the test that waited for it.
+ */
+public class MetricsListener implements IInvokedMethodListener, ISuiteListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsListener.class);
+
+    @Override
+    public void onStart(ISuite suite) {
+        Metrics.reset();
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod() || method.getTestMethod().isBeforeMethodConfiguration()) {
+            Metrics.openScope();
+        }
+    }
+
+    // Runs before the test result listeners, while Allure still has the test case open
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) return;
+        MetricSet scope = Metrics.closeScope();
+        if (scope == null || scope.isEmpty()) return;
+        try {
+            Allure.addAttachment("Latency by phase", "application/json", scope.toJson(), ".json");
+        } catch (RuntimeException e) {
+            log.debug("Could not attach latency metrics: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (Metrics.run().isEmpty()) return;
+        try {
+            Metrics.writeRunSummary(suite.getName());
+        } catch (Exception e) {
+            log.warn("Could not write latency summary: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package metrics;
+
+/** Timed stages of an API-vs-UI comparison; the key is the name used in reports. */
+public enum Phase {
+    DRIVER_STARTUP("driver.startup"),
+    API_CALL("api.call"),
+    RATE_LIMIT_WAIT("api.rate.limit.wait"),
+    RETRY_BACKOFF("api.retry.backoff"),
+    PAGE_OPEN("page.open"),
+    OVERLAY_REMOVAL("overlay.removal"),
+    SEARCH("search"),
+    SUGGESTIONS("search.suggestions"),
+    TEMPERATURE_EXTRACTION("extract.temperature"),
+    CONDITION_EXTRACTION("extract.condition"),
+    COMPARISON("comparison"),
+    COMPARISON_SKEW("comparison.skew");
+
+    private final String key;
+
+    Phase(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
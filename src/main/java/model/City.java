@@ -0,0 +1,50 @@
+package model;
+
+/** One entry of the bundled city list: OpenWeather city ID, name, ISO country code and coordinates. */
+public final class City {
+
+    private final int id;
+    private final String name;
+    private final String country;
+    private final double latitude;
+    private final double longitude;
+
+    public City(int id, String name, String country, double latitude, double longitude) {
+        this.id = id;
+        this.name = name;
+        this.country = country;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // ISO 3166 alpha-2, e.g. "GB"
+    public String getCountry() {
+        return country;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    // "London, GB", the form openweathermap.org uses in its search suggestions
+    public String getLabel() {
+        return name + ", " + country;
+    }
+
+    @Override
+    public String toString() {
+        return getLabel() + " (" + id + ")";
+    }
+}
@@ -1,5 +1,139 @@
 package model;
 
-public class WeatherData {
-    // Model class for weather data
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable snapshot of one /data/2.5/weather reading, in the units the request asked for:
+ * metric (°C, m/s), imperial (°F, mph) or standard (K, m/s, OpenWeather's default when none is
+ * given). The reading does not record which; callers that label or compare values must know the
+ * units they requested. Instances are produced by {@link WeatherDataDecoder} straight from the
+ * response bytes.
+ */
+public final class WeatherData {
+
+    private final int cityId;
+    private final String cityName;
+    private final String country;
+    private final double temperature;
+    private final double feelsLike;
+    private final int humidity;
+    private final int pressure;
+    private final double windSpeed;
+    private final int windDegree;
+    private final int conditionId;
+    private final String condition;
+    private final String description;
+    private final long observedAt;
+
+    WeatherData(int cityId, String cityName, String country,
+                double temperature, double feelsLike, int humidity, int pressure,
+                double windSpeed, int windDegree,
+                int conditionId, String condition, String description, long observedAt) {
+        this.cityId = cityId;
+        this.cityName = cityName;
+        this.country = country;
+        this.temperature = temperature;
+        this.feelsLike = feelsLike;
+        this.humidity = humidity;
+        this.pressure = pressure;
+        this.windSpeed = windSpeed;
+        this.windDegree = windDegree;
+        this.conditionId = conditionId;
+        this.condition = condition;
+        this.description = description;
+        this.observedAt = observedAt;
+    }
+
+    public static WeatherData fromJson(byte[] json) {
+        return WeatherDataDecoder.decode(json);
+    }
+
+    public static List<WeatherData> listFromJson(byte[] json) {
+        return WeatherDataDecoder.decodeList(json);
+    }
+
+    public int getCityId() {
+        return cityId;
+    }
+
+    public String getCityName() {
+        return cityName;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    // main.temp in the requested units; see toCelsius
+    public double getTemperature() {
+        return temperature;
+    }
+
+    public double getFeelsLike() {
+        return feelsLike;
+    }
+
+    // main.humidity in %
+    public int getHumidity() {
+        return humidity;
+    }
+
+    // main.pressure in hPa
+    public int getPressure() {
+        return pressure;
+    }
+
+    // wind.speed in m/s, or mph for imperial
+    public double getWindSpeed() {
+        return windSpeed;
+    }
+
+    public int getWindDegree() {
+        return windDegree;
+    }
+
+    // weather[0].id, e.g. 802
+    public int getConditionId() {
+        return conditionId;
+    }
+
+    // weather[0].main, e.g. "Clouds"
+    public String getCondition() {
+        return condition;
+    }
+
+    // weather[0].description, e.g. "scattered clouds"
+    public String getDescription() {
+        return description;
+    }
+
+    // dt: observation time in epoch seconds
+    public long getObservedAt() {
+        return observedAt;
+    }
+
+    // A temperature read in `units` (metric, imperial or standard; null means standard) converted to °C
+    public static double toCelsius(double temperature, String units) {
+        String unit = units == null ? "standard" : units.trim().toLowerCase(Locale.ROOT);
+        switch (unit) {
+            case "metric":
+                return temperature;
+            case "imperial":
+                return (temperature - 32) * 5 / 9;
+            case "standard":
+            case "":
+                return temperature - 273.15;
+            default:
+                throw new IllegalArgumentException("Unknown OpenWeather units: " + units);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WeatherData{" + cityName + "," + country + " (" + cityId + "): "
+                + "temp=" + temperature + ", " + condition + " / " + description
+                + ", humidity=" + humidity + "%, pressure=" + pressure + "hPa"
+                + ", wind=" + windSpeed + "@" + windDegree + ", dt=" + observedAt + "}";
+    }
 }
@@ -0,0 +1,152 @@
+package model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass streaming decoder for /data/2.5/weather and /data/2.5/group bodies. Reads tokens straight from the
+ * response bytes into primitives and skips everything it does not need; no tree is built.
+ */
+public final class WeatherDataDecoder {
+
+    // JsonFactory is thread-safe and expensive to create, so one instance serves every decode
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private WeatherDataDecoder() {
+    }
+
+    public static WeatherData decode(byte[] json) {
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Weather response is not a JSON object");
+            }
+            return readWeather(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed weather response", e);
+        }
+    }
+
+    // {"cnt": n, "list": [weather, ...]} as returned by /group; entries keep the response order
+    public static List<WeatherData> decodeList(byte[] json) {
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Group response is not a JSON object");
+            }
+            List<WeatherData> list = new ArrayList<>();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                if (!"list".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    list.add(readWeather(parser));
+                }
+            }
+            return list;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed group response", e);
+        }
+    }
+
+    // Expects the parser positioned on the START_OBJECT of a weather object; leaves it on the matching END_OBJECT
+    static WeatherData readWeather(JsonParser parser) throws IOException {
+        int cityId = 0;
+        String cityName = null;
+        String country = null;
+        double temperature = Double.NaN;
+        double feelsLike = Double.NaN;
+        int humidity = 0;
+        int pressure = 0;
+        double windSpeed = 0;
+        int windDegree = 0;
+        int conditionId = 0;
+        String condition = null;
+        String description = null;
+        long observedAt = 0;
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    cityId = parser.getValueAsInt();
+                    break;
+                case "name":
+                    cityName = parser.getValueAsString();
+                    break;
+                case "dt":
+                    observedAt = parser.getValueAsLong();
+                    break;
+                case "main":
+                    if (value != JsonToken.START_OBJECT) { parser.skipChildren(); break; }
+                    while ((field = parser.nextFieldName()) != null) {
+                        parser.nextToken();
+                        switch (field) {
+                            case "temp": temperature = parser.getValueAsDouble(); break;
+                            case "feels_like": feelsLike = parser.getValueAsDouble(); break;
+                            case "humidity": humidity = parser.getValueAsInt(); break;
+                            case "pressure": pressure = parser.getValueAsInt(); break;
+                            default: parser.skipChildren();
+                        }
+                    }
+                    break;
+                case "wind":
+                    if (value != JsonToken.START_OBJECT) { parser.skipChildren(); break; }
+                    while ((field = parser.nextFieldName()) != null) {
+                        parser.nextToken();
+                        switch (field) {
+                            case "speed": windSpeed = parser.getValueAsDouble(); break;
+                            case "deg": windDegree = parser.getValueAsInt(); break;
+                            default: parser.skipChildren();
+                        }
+                    }
+                    break;
+                case "sys":
+                    if (value != JsonToken.START_OBJECT) { parser.skipChildren(); break; }
+                    while ((field = parser.nextFieldName()) != null) {
+                        parser.nextToken();
+                        if ("country".equals(field)) {
+                            country = parser.getValueAsString();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    break;
+                case "weather":
+                    if (value != JsonToken.START_ARRAY) { parser.skipChildren(); break; }
+                    // Only weather[0] is the primary condition; later entries are skipped
+                    boolean first = true;
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        if (!first) { parser.skipChildren(); continue; }
+                        first = false;
+                        while ((field = parser.nextFieldName()) != null) {
+                            parser.nextToken();
+                            switch (field) {
+                                case "id": conditionId = parser.getValueAsInt(); break;
+                                case "main": condition = parser.getValueAsString(); break;
+                                case "description": description = parser.getValueAsString(); break;
+                                default: parser.skipChildren();
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (Double.isNaN(temperature)) {
+            throw new IllegalArgumentException("Weather response has no main.temp");
+        }
+        return new WeatherData(cityId, cityName, country, temperature, feelsLike, humidity, pressure,
+                windSpeed, windDegree, conditionId, condition, description, observedAt);
+    }
+}
@@ -0,0 +1,294 @@
+package pages;
+
+import metrics.Metrics;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.Sleeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+import utils.Deadline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Races a fallback chain of locators. Every poll evaluates all candidates in a single script call,
+ * in priority order, and the highest-priority hit wins. The chain shares one {@link Deadline}, so
+ * a miss costs one timeout rather than one timeout per locator.
+ */
+public class LocatorRace {
+
+    private static final Logger log = LoggerFactory.getLogger(LocatorRace.class);
+
+    // Returns the index and element of the first candidate with a (visible) match, plus per-candidate timings in ms
+    private static final String RACE_JS =
+            "var cands = arguments[0], needVisible = arguments[1];"
+            + "var out = { index: -1, element: null, timings: [], errors: [] };"
+            + "for (var i = 0; i < cands.length; i++) {"
+            + "  var t0 = performance.now(), nodes = [];"
+            + "  try {"
+            + "    if (cands[i][0] === 'css selector') {"
+            + "      nodes = document.querySelectorAll(cands[i][1]);"
+            + "    } else {"
+            + "      var snap = document.evaluate(cands[i][1], document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "      for (var k = 0; k < snap.snapshotLength; k++) nodes.push(snap.snapshotItem(k));"
+            + "    }"
+            + "  } catch (e) { out.errors.push(i); }"
+            + "  for (var j = 0; j < nodes.length; j++) {"
+            + "    if (!needVisible || nodes[j].getClientRects().length > 0) { out.index = i; out.element = nodes[j]; break; }"
+            + "  }"
+            + "  out.timings.push(performance.now() - t0);"
+            + "  if (out.index >= 0) break;"
+            + "}"
+            + "return out;";
+
+    private final WebDriver driver;
+    private final Duration pollInterval;
+    private final LongSupplier nanoClock;
+    private final Sleeper sleeper;
+
+    public LocatorRace(WebDriver driver) {
+        this(driver, Duration.ofMillis(ConfigReader.getLong("wait.poll.ms", 50)));
+    }
+
+    public LocatorRace(WebDriver driver, Duration pollInterval) {
+        this(driver, pollInterval, System::nanoTime, Sleeper.SYSTEM_SLEEPER);
+    }
+
+    // The clock and sleeper are swapped for fakes in tests; the clock must be the one the deadlines use
+    public LocatorRace(WebDriver driver, Duration pollInterval, LongSupplier nanoClock, Sleeper sleeper) {
+        this.driver = driver;
+        this.pollInterval = pollInterval;
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+    }
+
+    // Highest-priority candidate with a visible match before the deadline
+    public Outcome awaitVisible(Deadline deadline, By... candidates) {
+        return race(deadline, true, candidates);
+    }
+
+    // Highest-priority candidate present in the DOM (visible or not) before the deadline
+    public Outcome awaitPresent(Deadline deadline, By... candidates) {
+        return race(deadline, false, candidates);
+    }
+
+    // Races the strategy's candidates in learned order and feeds the result back into its statistics
+    public Outcome awaitVisible(Deadline deadline, LocatorStrategy strategy) {
+        return race(deadline, true, strategy);
+    }
+
+    public Outcome awaitPresent(Deadline deadline, LocatorStrategy strategy) {
+        return race(deadline, false, strategy);
+    }
+
+    private Outcome race(Deadline deadline, boolean needVisible, LocatorStrategy strategy) {
+        List<By> order = strategy.ordered();
+        Outcome outcome = race(deadline, needVisible, order.toArray(new By[0]));
+        strategy.recordOutcome(order, outcome);
+        return outcome;
+    }
+
+    private Outcome race(Deadline deadline, boolean needVisible, By... candidates) {
+        Outcome outcome = runRace(deadline, needVisible, candidates);
+        // In-page time spent on each locator across all polls
+        for (Attempt attempt : outcome.getAttempts()) {
+            if (attempt.getEvaluations() > 0) {
+                Metrics.recordLocator(attempt.getLocator(), (long) (attempt.getTotalMillis() * 1_000_000), attempt.isMatched());
+            }
+        }
+        return outcome;
+    }
+
+    private Outcome runRace(Deadline deadline, boolean needVisible, By... candidates) {
+        List<By> locators = Arrays.asList(candidates);
+        List<List<String>> encoded = new ArrayList<>();
+        for (By locator : locators) {
+            encoded.add(encode(locator));
+        }
+        Attempt[] attempts = new Attempt[locators.size()];
+        for (int i = 0; i < attempts.length; i++) {
+            attempts[i] = new Attempt(locators.get(i));
+        }
+
+        long start = nanoClock.getAsLong();
+        int polls = 0;
+        while (true) {
+            polls++;
+            Map<?, ?> result;
+            try {
+                result = (Map<?, ?>) ((JavascriptExecutor) driver).executeScript(RACE_JS, encoded, needVisible);
+            } catch (RuntimeException e) {
+                // Navigation in progress or the page is being replaced; treat as an empty poll
+                result = Collections.emptyMap();
+            }
+            int index = recordPoll(result, attempts);
+            if (index >= 0) {
+                Outcome outcome = new Outcome(locators.get(index), (WebElement) result.get("element"),
+                        Duration.ofNanos(nanoClock.getAsLong() - start), polls, Arrays.asList(attempts));
+                log.info("Locator race won by {}", outcome);
+                return outcome;
+            }
+            if (deadline.isExpired()) {
+                Outcome outcome = new Outcome(null, null, Duration.ofNanos(nanoClock.getAsLong() - start), polls, Arrays.asList(attempts));
+                log.warn("Locator race lost: {}", outcome);
+                return outcome;
+            }
+            if (!sleep(Math.min(pollInterval.toMillis(), deadline.remaining().toMillis()))) {
+                // Interrupted: give up now instead of polling without pause until the deadline
+                Outcome outcome = new Outcome(null, null, Duration.ofNanos(nanoClock.getAsLong() - start), polls, Arrays.asList(attempts));
+                log.warn("Locator race interrupted: {}", outcome);
+                return outcome;
+            }
+        }
+    }
+
+    private static int recordPoll(Map<?, ?> result, Attempt[] attempts) {
+        List<?> timings = (List<?>) result.get("timings");
+        List<?> errors = (List<?>) result.get("errors");
+        if (timings != null) {
+            for (int i = 0; i < timings.size() && i < attempts.length; i++) {
+                attempts[i].record(((Number) timings.get(i)).doubleValue());
+            }
+        }
+        if (errors != null) {
+            for (Object error : errors) {
+                attempts[((Number) error).intValue()].failed = true;
+            }
+        }
+        Object index = result.get("index");
+        int winner = index == null ? -1 : ((Number) index).intValue();
+        if (winner >= 0) attempts[winner].matched = true;
+        return winner;
+    }
+
+    // Translates a By into [strategy, expression] for in-page scripts
+    static List<String> encode(By locator) {
+        if (locator instanceof By.Remotable) {
+            By.Remotable.Parameters params = ((By.Remotable) locator).getRemoteParameters();
+            if ("css selector".equals(params.using()) || "xpath".equals(params.using())) {
+                return Arrays.asList(params.using(), String.valueOf(params.value()));
+            }
+            Map<String, String> cssEquivalents = new HashMap<>();
+            cssEquivalents.put("id", "#");
+            cssEquivalents.put("class name", ".");
+            if (cssEquivalents.containsKey(params.using())) {
+                return Arrays.asList("css selector", cssEquivalents.get(params.using()) + params.value());
+            }
+        }
+        throw new IllegalArgumentException("LocatorRace supports CSS, XPath, id and class name locators, got " + locator);
+    }
+
+    // False if the thread was interrupted; the interrupt flag is kept for the caller
+    private boolean sleep(long millis) {
+        if (Thread.currentThread().isInterrupted()) return false;
+        if (millis <= 0) return true;
+        try {
+            sleeper.sleep(Duration.ofMillis(millis));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Per-locator statistics for one race: how often it was evaluated and the in-page time it cost. */
+    public static final class Attempt {
+        private final By locator;
+        private int evaluations;
+        private double totalMillis;
+        private boolean matched;
+        private boolean failed;
+
+        Attempt(By locator) {
+            this.locator = locator;
+        }
+
+        void record(double millis) {
+            evaluations++;
+            totalMillis += millis;
+        }
+
+        public By getLocator() {
+            return locator;
+        }
+
+        public int getEvaluations() {
+            return evaluations;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public boolean isMatched() {
+            return matched;
+        }
+
+        // The browser rejected the expression (e.g. XPath 2.0 functions)
+        public boolean isFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return locator + " x" + evaluations + " " + String.format("%.1fms", totalMillis)
+                    + (matched ? " [hit]" : "") + (failed ? " [invalid]" : "");
+        }
+    }
+
+    public static final class Outcome {
+        private final By winner;
+        private final WebElement element;
+        private final Duration elapsed;
+        private final int polls;
+        private final List<Attempt> attempts;
+
+        Outcome(By winner, WebElement element, Duration elapsed, int polls, List<Attempt> attempts) {
+            this.winner = winner;
+            this.element = element;
+            this.elapsed = elapsed;
+            this.polls = polls;
+            this.attempts = attempts;
+        }
+
+        public boolean isFound() {
+            return winner != null;
+        }
+
+        public By getWinner() {
+            return winner;
+        }
+
+        public WebElement getElement() {
+            return element;
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        public int getPolls() {
+            return polls;
+        }
+
+        public List<Attempt> getAttempts() {
+            return attempts;
+        }
+
+        @Override
+        public String toString() {
+            return (winner != null ? winner : "no locator") + " after " + elapsed.toMillis() + "ms, "
+                    + polls + " polls; attempts=" + attempts;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package pages;
+
+import org.openqa.selenium.By;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+import utils.PropertiesFiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles each locator strategy once and keeps per-locator hit statistics, persisted to
+ * {@code locator.stats.file} between runs so the historically fastest winner is tried first.
+ */
+public final class LocatorRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(LocatorRegistry.class);
+
+    private static final LocatorRegistry INSTANCE = new LocatorRegistry(
+            Paths.get(ConfigReader.get("locator.stats.file", "target/locator-stats.properties")));
+
+    private final Path statsFile;
+    private final Properties persisted = new Properties();
+    private final Map<String, LocatorStrategy> strategies = new ConcurrentHashMap<>();
+
+    // A registry of its own, persisted to statsFile; the pages share getInstance()
+    public LocatorRegistry(Path statsFile) {
+        this.statsFile = statsFile;
+        load();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::save, "locator-stats-save"));
+    }
+
+    public static LocatorRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    // Returns the strategy registered under `name`, compiling it from the candidates on first use
+    public LocatorStrategy strategy(String name, By... candidates) {
+        return strategies.computeIfAbsent(name, key -> {
+            List<By> declared = Arrays.asList(candidates);
+            List<LocatorStats> stats = new ArrayList<>(declared.size());
+            for (By locator : declared) {
+                LocatorStats entry = new LocatorStats();
+                String saved = persisted.getProperty(statsKey(key, locator));
+                if (saved != null) entry.restore(saved);
+                stats.add(entry);
+            }
+            return new LocatorStrategy(key, declared, stats);
+        });
+    }
+
+    public synchronized void save() {
+        Properties out = new Properties();
+        out.putAll(persisted);
+        for (LocatorStrategy strategy : strategies.values()) {
+            for (By locator : strategy.declared()) {
+                out.setProperty(statsKey(strategy.getName(), locator), strategy.statsFor(locator).serialize());
+            }
+        }
+        try {
+            PropertiesFiles.storeAtomically(out, statsFile, "Locator hit statistics: wins,losses,totalWinNanos");
+        } catch (IOException e) {
+            log.warn("Could not save locator statistics to {}: {}", statsFile, e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(statsFile)) return;
+        try (InputStream stream = Files.newInputStream(statsFile)) {
+            persisted.load(stream);
+            log.debug("Loaded {} locator statistics from {}", persisted.size(), statsFile);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable locator statistics {}: {}", statsFile, e.getMessage());
+        }
+    }
+
+    private static String statsKey(String strategy, By locator) {
+        return strategy + "|" + locator;
+    }
+}
@@ -0,0 +1,49 @@
+package pages;
+
+// Win/loss counters for one locator of one strategy; a loss means it was tried ahead of the winner and missed
+final class LocatorStats {
+
+    private long wins;
+    private long losses;
+    private long totalWinNanos;
+
+    synchronized void recordWin(long elapsedNanos) {
+        wins++;
+        totalWinNanos += Math.max(0, elapsedNanos);
+    }
+
+    synchronized void recordLoss() {
+        losses++;
+    }
+
+    // Never-won locators score 0 and sort after every locator that has won at least once
+    synchronized double winRate() {
+        return wins == 0 ? 0.0 : (double) wins / (wins + losses);
+    }
+
+    synchronized double meanWinMillis() {
+        return wins == 0 ? Double.MAX_VALUE : totalWinNanos / 1_000_000.0 / wins;
+    }
+
+    synchronized String serialize() {
+        return wins + "," + losses + "," + totalWinNanos;
+    }
+
+    synchronized void restore(String serialized) {
+        String[] parts = serialized.split(",");
+        if (parts.length != 3) return;
+        try {
+            wins = Long.parseLong(parts[0].trim());
+            losses = Long.parseLong(parts[1].trim());
+            totalWinNanos = Long.parseLong(parts[2].trim());
+        } catch (NumberFormatException ignored) {
+            // Corrupt line: start this locator from scratch
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return wins + " wins, " + losses + " losses"
+                + (wins > 0 ? String.format(", mean %.1fms", totalWinNanos / 1_000_000.0 / wins) : "");
+    }
+}
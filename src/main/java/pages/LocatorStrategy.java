@@ -0,0 +1,77 @@
+package pages;
+
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A named fallback chain compiled once by {@link LocatorRegistry}. {@link #ordered()} returns the
+ * candidates with the historically most reliable, fastest winners first; candidates that never won
+ * keep their declared order at the end, so a layout change still falls through to them.
+ */
+public final class LocatorStrategy {
+
+    private final String name;
+    private final List<By> declared;
+    private final List<LocatorStats> stats;
+
+    LocatorStrategy(String name, List<By> declared, List<LocatorStats> stats) {
+        this.name = name;
+        this.declared = Collections.unmodifiableList(new ArrayList<>(declared));
+        this.stats = stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<By> declared() {
+        return declared;
+    }
+
+    public List<By> ordered() {
+        List<Integer> indexes = new ArrayList<>(declared.size());
+        for (int i = 0; i < declared.size(); i++) indexes.add(i);
+        indexes.sort(Comparator.comparingDouble((Integer i) -> -stats.get(i).winRate())
+                .thenComparingDouble(i -> stats.get(i).meanWinMillis())
+                .thenComparingInt(i -> i));
+        List<By> result = new ArrayList<>(declared.size());
+        for (int i : indexes) result.add(declared.get(i));
+        return result;
+    }
+
+    // Records that `winner` matched after `elapsedNanos`; every candidate tried before it counts as a loss
+    public void recordWin(List<By> triedOrder, By winner, long elapsedNanos) {
+        for (By candidate : triedOrder) {
+            if (candidate.equals(winner)) {
+                statsFor(candidate).recordWin(elapsedNanos);
+                return;
+            }
+            statsFor(candidate).recordLoss();
+        }
+    }
+
+    public void recordOutcome(List<By> triedOrder, LocatorRace.Outcome outcome) {
+        if (outcome.isFound()) {
+            recordWin(triedOrder, outcome.getWinner(), outcome.getElapsed().toNanos());
+        }
+    }
+
+    LocatorStats statsFor(By locator) {
+        int index = declared.indexOf(locator);
+        if (index < 0) throw new IllegalArgumentException(locator + " is not part of strategy " + name);
+        return stats.get(index);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(name).append(':');
+        for (By locator : ordered()) {
+            out.append("\n  ").append(locator).append(" -> ").append(statsFor(locator));
+        }
+        return out.toString();
+    }
+}
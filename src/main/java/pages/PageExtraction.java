@@ -0,0 +1,58 @@
+package pages;
+
+/**
+ * Result of {@link WeatherPage#extractInPage()}: the temperature and condition text chosen in the
+ * browser, plus the locator that produced each so fallbacks can be diagnosed.
+ */
+public final class PageExtraction {
+
+    private final String temperatureText;
+    private final String temperatureLocator;
+    private final String condition;
+    private final String conditionLocator;
+    private final int skippedCandidates;
+
+    PageExtraction(String temperatureText, String temperatureLocator, String condition, String conditionLocator, int skippedCandidates) {
+        this.temperatureText = temperatureText;
+        this.temperatureLocator = temperatureLocator;
+        this.condition = condition;
+        this.conditionLocator = conditionLocator;
+        this.skippedCandidates = skippedCandidates;
+    }
+
+    public boolean hasTemperature() {
+        return temperatureText != null && !temperatureText.isEmpty();
+    }
+
+    public boolean hasCondition() {
+        return condition != null && !condition.isEmpty();
+    }
+
+    // Raw element text, e.g. "31°C"; null when nothing matched
+    public String getTemperatureText() {
+        return temperatureText;
+    }
+
+    public String getTemperatureLocator() {
+        return temperatureLocator;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public String getConditionLocator() {
+        return conditionLocator;
+    }
+
+    // Condition candidates rejected as numeric, promotional or non-weather text
+    public int getSkippedCandidates() {
+        return skippedCandidates;
+    }
+
+    @Override
+    public String toString() {
+        return "temperature='" + temperatureText + "' (" + temperatureLocator + "), condition='" + condition
+                + "' (" + conditionLocator + "), skipped=" + skippedCandidates;
+    }
+}
@@ -0,0 +1,191 @@
+package pages;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Event-driven replacement for fixed sleeps. A MutationObserver and a fetch/XHR counter are
+ * installed in every document; each poll is then a single script call that reports how long the
+ * DOM has been quiet, how many requests are in flight and which of the awaited selectors is visible.
+ * On Chrome they are registered to run before the page's own scripts, so requests the page starts
+ * while loading are counted; elsewhere the first poll installs them.
+ */
+public class PageSettleWait {
+
+    private static final Logger log = LoggerFactory.getLogger(PageSettleWait.class);
+
+    // Idempotent, so it can run both at document creation and from the first poll
+    private static final String INSTALL_JS =
+            "(function () {"
+            + "  if (window.__weatherSettle) return;"
+            + "  var s = window.__weatherSettle = { last: performance.now(), pending: 0, target: null, targetLast: 0, targetObserver: null };"
+            + "  new MutationObserver(function () { s.last = performance.now(); })"
+            + "    .observe(document, { childList: true, subtree: true, characterData: true, attributes: true });"
+            + "  var done = function () { s.pending = Math.max(0, s.pending - 1); s.last = performance.now(); };"
+            + "  if (window.fetch) {"
+            + "    var origFetch = window.fetch;"
+            + "    window.fetch = function () {"
+            + "      s.pending++;"
+            + "      return origFetch.apply(this, arguments).then(function (r) { done(); return r; }, function (e) { done(); throw e; });"
+            + "    };"
+            + "  }"
+            + "  var origSend = XMLHttpRequest.prototype.send;"
+            + "  XMLHttpRequest.prototype.send = function () {"
+            + "    s.pending++; this.addEventListener('loadend', done);"
+            + "    return origSend.apply(this, arguments);"
+            + "  };"
+            + "})();";
+
+    // Reports [quietMillis, pendingRequests, matchedIndex, loaded]. With selectors, quietMillis is
+    // measured on the first visible match's subtree only, re-observed whenever that element changes
+    private static final String POLL_JS = INSTALL_JS
+            + "var s = window.__weatherSettle, now = performance.now();"
+            + "var sels = arguments[0], matched = -1, el = null;"
+            + "for (var i = 0; i < sels.length && matched < 0; i++) {"
+            + "  var els = document.querySelectorAll(sels[i]);"
+            + "  for (var j = 0; j < els.length; j++) {"
+            + "    if (els[j].getClientRects().length > 0) { matched = i; el = els[j]; break; }"
+            + "  }"
+            + "}"
+            + "if (sels.length === 0) return [Math.round(now - s.last), s.pending, -1, document.readyState === 'complete'];"
+            + "if (el !== s.target) {"
+            + "  if (s.targetObserver) s.targetObserver.disconnect();"
+            + "  s.target = el; s.targetLast = now; s.targetObserver = null;"
+            + "  if (el) {"
+            + "    s.targetObserver = new MutationObserver(function () { s.targetLast = performance.now(); });"
+            + "    s.targetObserver.observe(el, { childList: true, subtree: true, characterData: true, attributes: true });"
+            + "  }"
+            + "}"
+            + "return [Math.round(now - s.targetLast), s.pending, matched, document.readyState === 'complete'];";
+
+    // Sessions that already run INSTALL_JS on every new document; pooled sessions are registered once
+    private static final Set<WebDriver> INSTALLED = Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
+
+    private final WebDriver driver;
+    private final Duration quietPeriod;
+    private final Duration deadline;
+    private final Duration pollInterval;
+
+    public PageSettleWait(WebDriver driver) {
+        this(driver,
+                Duration.ofMillis(ConfigReader.getLong("wait.quiet.ms", 300)),
+                Duration.ofMillis(ConfigReader.getLong("wait.deadline.ms", 10000)),
+                Duration.ofMillis(ConfigReader.getLong("wait.poll.ms", 50)));
+    }
+
+    public PageSettleWait(WebDriver driver, Duration quietPeriod, Duration deadline, Duration pollInterval) {
+        this.driver = driver;
+        this.quietPeriod = quietPeriod;
+        this.deadline = deadline;
+        this.pollInterval = pollInterval;
+        installOnNewDocuments(driver);
+    }
+
+    // Version-independent CDP command, as in BrowserFactory; other browsers fall back to installing on first poll
+    private static void installOnNewDocuments(WebDriver driver) {
+        if (!(driver instanceof ChromiumDriver) || !INSTALLED.add(driver)) return;
+        try {
+            ((ChromiumDriver) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", Map.of("source", INSTALL_JS));
+        } catch (RuntimeException e) {
+            INSTALLED.remove(driver);
+            log.debug("Could not register the settle observers for new documents: {}", e.getMessage());
+        }
+    }
+
+    // Waits until the document is loaded, no request is in flight and the DOM has been quiet for the quiet period
+    public Result awaitQuiet() {
+        return await(deadline);
+    }
+
+    public Result awaitQuiet(Duration deadline) {
+        return await(deadline);
+    }
+
+    // Waits until one of the selectors has a visible match whose own subtree has been quiet for the
+    // quiet period; unrelated DOM changes and requests elsewhere on the page do not hold it up
+    public Result awaitAny(Duration deadline, String... cssSelectors) {
+        return await(deadline, cssSelectors);
+    }
+
+    public Result awaitAny(String... cssSelectors) {
+        return await(deadline, cssSelectors);
+    }
+
+    private Result await(Duration budget, String... cssSelectors) {
+        List<String> selectors = Arrays.asList(cssSelectors);
+        long start = System.nanoTime();
+        int[] lastMatch = {-1};
+        try {
+            new WebDriverWait(driver, budget, pollInterval)
+                    .ignoring(ClassCastException.class)
+                    .until(d -> {
+                        List<?> state = (List<?>) ((JavascriptExecutor) d).executeScript(POLL_JS, selectors);
+                        long quietMillis = ((Number) state.get(0)).longValue();
+                        long pending = ((Number) state.get(1)).longValue();
+                        int matched = ((Number) state.get(2)).intValue();
+                        boolean loaded = Boolean.TRUE.equals(state.get(3));
+                        lastMatch[0] = matched;
+                        boolean quiet = quietMillis >= quietPeriod.toMillis();
+                        if (!selectors.isEmpty()) return matched >= 0 && quiet;
+                        return loaded && pending == 0 && quiet;
+                    });
+            return new Result(true, matchedSelector(selectors, lastMatch[0]), elapsedSince(start));
+        } catch (TimeoutException e) {
+            return new Result(false, matchedSelector(selectors, lastMatch[0]), elapsedSince(start));
+        }
+    }
+
+    private static String matchedSelector(List<String> selectors, int index) {
+        return index >= 0 && index < selectors.size() ? selectors.get(index) : null;
+    }
+
+    private static Duration elapsedSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    public static final class Result {
+        private final boolean settled;
+        private final String matchedSelector;
+        private final Duration elapsed;
+
+        Result(boolean settled, String matchedSelector, Duration elapsed) {
+            this.settled = settled;
+            this.matchedSelector = matchedSelector;
+            this.elapsed = elapsed;
+        }
+
+        // False when the deadline passed first; the page may still be usable
+        public boolean isSettled() {
+            return settled;
+        }
+
+        // First awaited selector with a visible match, or null
+        public String getMatchedSelector() {
+            return matchedSelector;
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return (settled ? "settled" : "not settled") + " after " + elapsed.toMillis() + "ms"
+                    + (matchedSelector != null ? " (matched " + matchedSelector + ")" : "");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package pages;
+
+import model.City;
+import utils.CityIndex;
+
+import java.util.List;
+
+/**
+ * Picks the search suggestion that is exactly the requested city. Suggestions read like
+ * "London, GB" (optionally followed by extra text such as a temperature) and may carry the
+ * OpenWeather city ID. A suggestion is only chosen when it is the single exact match, so
+ * "London" never lands on "Londonderry" or on London, CA.
+ */
+public final class SuggestionMatcher {
+
+    private SuggestionMatcher() {
+    }
+
+    /**
+     * @param labels   visible text of each suggestion, in page order
+     * @param cityIds  the suggestion's city ID where the page exposes one, else null
+     * @param query    what was typed, e.g. "London" or "London,GB"
+     * @param expected the query resolved through the city index, or null if it is not listed
+     * @return index of the suggestion to click, or -1 when none (or more than one) matches exactly
+     */
+    public static int choose(List<String> labels, List<String> cityIds, String query, City expected) {
+        if (expected != null) {
+            String id = String.valueOf(expected.getId());
+            for (int i = 0; i < cityIds.size(); i++) {
+                if (id.equals(cityIds.get(i))) return i;
+            }
+            return unique(labels, CityIndex.normalize(expected.getName()), expected.getCountry());
+        }
+        int comma = query.lastIndexOf(',');
+        String name = comma >= 0 ? query.substring(0, comma) : query;
+        String country = comma >= 0 ? query.substring(comma + 1).trim() : "";
+        return unique(labels, CityIndex.normalize(name), country.isEmpty() ? null : country);
+    }
+
+    // Index of the only label whose name part is `name` (and country, if given), else -1
+    private static int unique(List<String> labels, String name, String country) {
+        int found = -1;
+        for (int i = 0; i < labels.size(); i++) {
+            String label = labels.get(i);
+            if (label == null) continue;
+            int comma = label.indexOf(',');
+            String labelName = CityIndex.normalize(comma >= 0 ? label.substring(0, comma) : label);
+            if (!labelName.equals(name)) continue;
+            if (country != null && !countryOf(label, comma).equalsIgnoreCase(country)) continue;
+            if (found >= 0) return -1;
+            found = i;
+        }
+        return found;
+    }
+
+    // "London, GB 12 C" -> "GB"
+    private static String countryOf(String label, int comma) {
+        if (comma < 0) return "";
+        int start = comma + 1;
+        while (start < label.length() && Character.isWhitespace(label.charAt(start))) start++;
+        int end = start;
+        while (end < label.length() && Character.isLetter(label.charAt(end))) end++;
+        return label.substring(start, end);
+    }
+}
@@ -7,22 +7,152 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.openqa.selenium.JavascriptExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import base.BaseTest;
+import base.Diagnostics;
+import base.WeatherResponseCapture;
+import metrics.Metrics;
+import model.WeatherData;
+import metrics.Phase;
+import utils.CityIndex;
+import utils.ConditionClassifier;
+import utils.ConfigReader;
+import utils.TemperatureScanner;
+import utils.Deadline;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
-public class WeatherPage extends BaseTest {
-    // Page Object Model for Weather UI
+public class WeatherPage {
+    // Page Object Model for Weather UI; one instance per test thread, never shared
 
-    private WebDriver driver;
+    private static final Logger log = LoggerFactory.getLogger(WeatherPage.class);
+
+    private final WebDriver driver;
 
     // Stable locator for search input (adjust if site changes)
     private By searchInput = By.cssSelector("input[placeholder='Search city']");
 
+    // Fallback chains, compiled once; the registry tries the historically fastest winner first
+    private static final LocatorRegistry LOCATORS = LocatorRegistry.getInstance();
+
+    private static final LocatorStrategy SUGGESTIONS = LOCATORS.strategy("search.suggestions",
+        By.cssSelector(".search-dropdown-menu li"),
+        By.cssSelector("ul.search-results-list li"),
+        By.cssSelector(".search-suggestions li"),
+        By.cssSelector("ul.suggestions-list li"),
+        By.cssSelector(".suggest-list li"));
+
+    private static final LocatorStrategy SEARCH_RESULTS = LOCATORS.strategy("search.results",
+        By.cssSelector(".current-weather"),
+        By.cssSelector(".weather-widget"),
+        By.cssSelector("[class*='temperature']"),
+        By.cssSelector(".weather-info"),
+        By.xpath("//*[contains(@class, 'weather')]//span[contains(text(),'°')]"),
+        By.xpath("//*[contains(text(),'°C') or contains(text(),'\u00B0C')]"));
+
+    private static final LocatorStrategy SEARCH_RESULTS_FALLBACK = LOCATORS.strategy("search.results.fallback",
+        By.xpath("//*[contains(text(),'°') or contains(text(),'°C')]"),
+        By.xpath("//*[contains(text(),'\u00B0') or contains(text(),'\u00B0C')]"),
+        By.xpath("//*[contains(text(),'C') and string-length(text()) < 10]"),
+        By.xpath("//span[matches(text(), '[0-9]+.*C')]"));
+
+    private static final LocatorStrategy TEMPERATURE = LOCATORS.strategy("temperature",
+        // CSS selectors for common temperature classes
+        By.cssSelector(".temperature"),
+        By.cssSelector(".current-temp"),
+        By.cssSelector("[class*='temp']"),
+        By.cssSelector(".temp"),
+        By.cssSelector(".current-container .heading"),
+        // Looking for elements with numeric content + C
+        By.xpath("//span[matches(text(), '\\d+.*C')]"),
+        By.xpath("//div[matches(text(), '\\d+.*C')]"),
+        // Looking for elements containing degree symbols in different encodings
+        By.xpath("//*[contains(text(),'°C') or contains(text(),'°')]"),
+        By.xpath("//*[contains(text(),'\u00B0C') or contains(text(),'\u00B0')]"),
+        // Temperature with number patterns
+        By.xpath("//*[matches(text(), '-?\\d+(\\.\\d+)?\\s*°?C?')]"));
+
+    // Only search inside these scoped containers to avoid ads/banners
+    private static final LocatorStrategy CONDITION_CONTAINERS = LOCATORS.strategy("condition.containers",
+        By.cssSelector(".current-container"),
+        By.cssSelector(".current-weather"),
+        By.cssSelector("#weather-widget"),
+        By.cssSelector("main"),
+        By.cssSelector(".right"));
+    private static final String CONDITION_CANDIDATES = ".weather-description, .description, p, span";
+
+    // Promo, label and weather-keyword vocabularies compiled once into a single automaton
+    private static final ConditionClassifier CONDITIONS = ConditionClassifier.DEFAULT;
+
+    private static final String EXTRACT_SCRIPT = loadScript("/scripts/extract-weather.js");
+    private static final String SUGGESTIONS_SCRIPT = loadScript("/scripts/read-suggestions.js");
+    private static final CityIndex CITIES = CityIndex.getDefault();
+
+    private final PageSettleWait settleWait;
+    private final String extractionMode = ConfigReader.get("extraction.mode", "script");
+    private final boolean scriptExtraction = !"dom".equalsIgnoreCase(extractionMode);
+    // Reads the JSON the page fetches for its widget; null when disabled or the browser has no DevTools
+    private final WeatherResponseCapture capture;
+
+    // Read at most once per search and shared by getTemperature() and getCondition()
+    private boolean captureAwaited;
+    private WeatherData captured;
+    private String capturedUnits;
+    private PageExtraction extraction;
+
     public WeatherPage(WebDriver driver) {
         this.driver = driver;
+        this.settleWait = new PageSettleWait(driver);
+        this.capture = "network".equalsIgnoreCase(extractionMode) ? WeatherResponseCapture.attach(driver) : null;
+    }
+
+    // The reading the page fetched for its last search, or null (after capture.timeout.ms) if none was seen;
+    // only the first call after a search waits
+    public WeatherData getCapturedWeather() {
+        if (capture == null) return null;
+        if (!captureAwaited) {
+            captured = capture.await(Duration.ofMillis(ConfigReader.getLong("capture.timeout.ms", 2000)));
+            capturedUnits = capture.getLatestUnits();
+            captureAwaited = true;
+        }
+        return captured;
+    }
+
+    // The in-page extraction for the last search, run on first use; a failed run counts as empty
+    private PageExtraction pageExtraction() {
+        if (extraction == null) {
+            try {
+                extraction = extractInPage();
+            } catch (Exception e) {
+                log.info("In-page extraction failed ({}), falling back to DOM locators", e.getMessage());
+                extraction = new PageExtraction(null, null, null, null, 0);
+            }
+        }
+        return extraction;
+    }
+
+    private void forgetReadings() {
+        captureAwaited = false;
+        captured = null;
+        capturedUnits = null;
+        extraction = null;
+    }
+
+    // Returns once the page has loaded and its DOM and network activity have gone quiet
+    public PageSettleWait.Result waitForPageSettled() {
+        PageSettleWait.Result result = settleWait.awaitQuiet();
+        log.info("Page {}", result);
+        return result;
     }
 
     public void waitForWeatherElement(By locator) {
@@ -30,16 +160,24 @@ public class WeatherPage extends BaseTest {
     }
     
     public void open(String url) {
-        driver.get(url);
+        try (Metrics.Timer ignored = Metrics.start(Phase.PAGE_OPEN)) {
+            driver.get(url);
+        }
     }
 
     // Helper: remove overlays (assistant, banners, cookies) via JS and wait for invisibility
     public void removeOverlaysAndWait() {
+        try (Metrics.Timer ignored = Metrics.start(Phase.OVERLAY_REMOVAL)) {
+            removeOverlays();
+        }
+    }
+
+    private void removeOverlays() {
         try {
             String js = "var sels=['.ulla-weather-assistant','.assistant','.chat-widget','.cookie-banner','.banner_stripe','.popup','.modal']; sels.forEach(function(s){var els=document.querySelectorAll(s); els.forEach(function(e){ if(e && e.parentNode){ e.parentNode.removeChild(e); } });});";
             ((JavascriptExecutor) driver).executeScript(js);
         } catch (Exception e) {
-            System.out.println("DEBUG: removeOverlays JS failed: " + e.getMessage());
+            log.debug("removeOverlays JS failed: {}", e.getMessage());
         }
         try {
             WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(5));
@@ -52,8 +190,17 @@ public class WeatherPage extends BaseTest {
         } catch (Exception ignored) { }
     }
 
-    // Refactored searchCity: wait for input, handle cookie banner, clear, send text + try click first suggestion, fallback to ENTER, wait for result
+    // Refactored searchCity: wait for input, handle cookie banner, clear, send text + click the exact suggestion, fallback to ENTER, wait for result
     public void searchCity(String city) {
+        try (Metrics.Timer ignored = Metrics.start(Phase.SEARCH)) {
+            performSearch(city);
+        }
+    }
+
+    private void performSearch(String city) {
+        // Only the response and page state for this search count
+        if (capture != null) capture.clear();
+        forgetReadings();
         WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(20));
 
         // 1. Handle cookie banner if present with case-insensitive matching
@@ -62,10 +209,11 @@ public class WeatherPage extends BaseTest {
             WebElement acceptBtn = wait.withTimeout(Duration.ofSeconds(5))
                 .until(ExpectedConditions.elementToBeClickable(acceptCookie));
             acceptBtn.click();
-            Thread.sleep(500); // Brief pause after closing banner
-            System.out.println("INFO: Cookie banner closed");
+            // Let the banner's close animation finish instead of sleeping a fixed time
+            settleWait.awaitQuiet(Duration.ofMillis(ConfigReader.getLong("wait.banner.deadline.ms", 2000)));
+            log.info("Cookie banner closed");
         } catch (Exception ignored) {
-            System.out.println("INFO: No cookie banner found or not clickable");
+            log.info("No cookie banner found or not clickable");
         }
 
         // 2. Type in search box and wait for suggestions
@@ -73,282 +221,301 @@ public class WeatherPage extends BaseTest {
         searchBox.clear();
         searchBox.sendKeys(city);
         
+        Metrics.Timer suggestionTimer = Metrics.start(Phase.SUGGESTIONS);
         try {
-            // Wait briefly for suggestions to load
-            Thread.sleep(1500);
-            
-            // Try multiple suggestion list locators
-            By[] suggestionLocators = {
-                By.cssSelector(".search-dropdown-menu li"),
-                By.cssSelector("ul.search-results-list li"),
-                By.cssSelector(".search-suggestions li"),
-                By.cssSelector("ul.suggestions-list li"),
-                By.cssSelector(".suggest-list li"),
-                By.xpath("//ul[contains(@class,'suggest') or contains(@class,'search')]//li[contains(text(),'" + city + "')]")
-            };
+            // Return as soon as a suggestion list renders and stops changing
+            List<By> suggestionOrder = SUGGESTIONS.ordered();
+            PageSettleWait.Result suggestionsReady = settleWait.awaitAny(
+                Duration.ofMillis(ConfigReader.getLong("wait.suggestions.deadline.ms", 3000)), cssSelectors(suggestionOrder));
+            log.info("Suggestions {}", suggestionsReady);
             
+            // Read every visible suggestion in one call and click only the exact match for the city
+            long suggestionStart = System.nanoTime();
+            @SuppressWarnings("unchecked")
+            Map<String, Object> listed = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(
+                SUGGESTIONS_SCRIPT, Arrays.asList(cssSelectors(suggestionOrder)));
             WebElement suggestionToClick = null;
-            for (By locator : suggestionLocators) {
-                try {
-                    List<WebElement> suggestions = driver.findElements(locator);
-                    for (WebElement suggestion : suggestions) {
-                        if (suggestion.isDisplayed() && suggestion.getText().toLowerCase().contains(city.toLowerCase())) {
-                            suggestionToClick = suggestion;
-                            break;
-                        }
-                    }
-                    if (suggestionToClick != null) break;
-                } catch (Exception e) {
-                    continue;
+            if (listed != null) {
+                @SuppressWarnings("unchecked")
+                List<WebElement> elements = (List<WebElement>) listed.get("elements");
+                @SuppressWarnings("unchecked")
+                List<String> labels = (List<String>) listed.get("labels");
+                @SuppressWarnings("unchecked")
+                List<String> cityIds = (List<String>) listed.get("cityIds");
+                int chosen = SuggestionMatcher.choose(labels, cityIds, city, CITIES.resolve(city));
+                By listLocator = pick(suggestionOrder, listed.get("selectorIndex"));
+                if (chosen >= 0) {
+                    suggestionToClick = elements.get(chosen);
+                    if (listLocator != null) SUGGESTIONS.recordWin(suggestionOrder, listLocator, System.nanoTime() - suggestionStart);
+                } else {
+                    log.info("No single exact suggestion for '{}' among {}", city, labels);
                 }
+                if (listLocator != null) Metrics.recordLocator(listLocator, System.nanoTime() - suggestionStart, chosen >= 0);
             }
             
             if (suggestionToClick != null) {
                 wait.until(ExpectedConditions.elementToBeClickable(suggestionToClick)).click();
-                System.out.println("INFO: Clicked matching suggestion for: " + city);
+                log.info("Clicked matching suggestion for: {}", city);
             } else {
-                System.out.println("INFO: No matching suggestion found, pressing ENTER");
+                log.info("No matching suggestion found, pressing ENTER");
                 searchBox.sendKeys(Keys.ENTER);
             }
+            suggestionTimer.stop();
 
             // Remove overlays after interacting with the page to avoid assistant/banner blocking results
             removeOverlaysAndWait();
             
         } catch (Exception e) {
-            System.out.println("INFO: Failed to handle suggestions: " + e.getMessage() + ". Falling back to ENTER.");
+            log.info("Failed to handle suggestions: {}. Falling back to ENTER.", e.getMessage());
             searchBox.sendKeys(Keys.ENTER);
+            suggestionTimer.stop();
             removeOverlaysAndWait();
         }
 
-        // 3. Wait for results with multiple strategies
-        try {
-            // First try specific weather widgets
-            By[] weatherLocators = {
-                By.cssSelector(".current-weather"),
-                By.cssSelector(".weather-widget"),
-                By.cssSelector("[class*='temperature']"),
-                By.cssSelector(".weather-info"),
-                By.xpath("//*[contains(@class, 'weather')]//span[contains(text(),'°')]") ,
-                By.xpath("//*[contains(text(),'°C') or contains(text(),'\u00B0C')]")
-            };
-
-            boolean found = false;
-            for (By locator : weatherLocators) {
-                try {
-                    wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
-                    found = true;
-                    System.out.println("INFO: Weather results found with locator: " + locator);
-                    break;
-                } catch (Exception ignored) {
-                    // Try next locator
-                }
-            }
+        // 3. Wait for results: race every locator per poll, with the whole chain bounded by one deadline
+        Deadline resultsBudget = Deadline.after(Duration.ofSeconds(ConfigReader.getLong("search.results.timeout.seconds", 20)));
+        LocatorRace race = new LocatorRace(driver);
 
-            if (!found) {
-                throw new RuntimeException("Weather results not visible after search");
-            }
-        } catch (Exception e) {
-            System.out.println("WARNING: Standard weather containers not found: " + e.getMessage());
-            // Final fallback: wait for ANY element containing temperature or number followed by C
-            try {
-                wait.until(ExpectedConditions.or(
-                    ExpectedConditions.presenceOfElementLocated(By.xpath("//*[contains(text(),'°') or contains(text(),'°C')]")),
-                    ExpectedConditions.presenceOfElementLocated(By.xpath("//*[contains(text(),'\u00B0') or contains(text(),'\u00B0C')]")),
-                    ExpectedConditions.presenceOfElementLocated(By.xpath("//*[contains(text(),'C') and string-length(text()) < 10]")),
-                    ExpectedConditions.presenceOfElementLocated(By.xpath("//span[matches(text(), '[0-9]+.*C')]"))
-                ));
-                System.out.println("INFO: Found weather element with fallback locators");
-            } catch (Exception ex) {
-                System.out.println("WARNING: Even fallback weather containers not found. Will try to continue anyway.");
-                // Just continue and hope for the best
-            }
+        // Specific weather widgets get most of the budget before the broad fallbacks are accepted
+        LocatorRace.Outcome results = race.awaitVisible(resultsBudget.slice(0.75), SEARCH_RESULTS);
+        if (results.isFound()) {
+            log.info("Weather results found with locator: {}", results.getWinner());
+            return;
+        }
+
+        log.warn("Standard weather containers not found within {}ms", results.getElapsed().toMillis());
+        // Final fallback: ANY element containing temperature or number followed by C, in the remaining budget
+        LocatorRace.Outcome fallback = race.awaitPresent(resultsBudget, SEARCH_RESULTS_FALLBACK);
+        if (fallback.isFound()) {
+            log.info("Found weather element with fallback locator: {}", fallback.getWinner());
+        } else {
+            log.warn("Even fallback weather containers not found. Will try to continue anyway.");
         }
     }
 
+    // Runs every temperature and condition candidate in the browser and returns the winners in one roundtrip
+    public PageExtraction extractInPage() {
+        List<By> temperatureOrder = TEMPERATURE.ordered();
+        List<By> containerOrder = CONDITION_CONTAINERS.ordered();
+        List<List<String>> temperatureCandidates = new ArrayList<>();
+        for (By locator : temperatureOrder) {
+            temperatureCandidates.add(LocatorRace.encode(locator));
+        }
+
+        long start = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> raw = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(EXTRACT_SCRIPT,
+            temperatureCandidates, Arrays.asList(cssSelectors(containerOrder)), CONDITION_CANDIDATES,
+            ConditionClassifier.PROMO_TOKENS, ConditionClassifier.WEATHER_KEYWORDS);
+        long elapsed = System.nanoTime() - start;
+
+        By temperatureLocator = pick(temperatureOrder, raw.get("temperatureIndex"));
+        By conditionLocator = pick(containerOrder, raw.get("conditionIndex"));
+        if (temperatureLocator != null) TEMPERATURE.recordWin(temperatureOrder, temperatureLocator, elapsed);
+        if (conditionLocator != null) CONDITION_CONTAINERS.recordWin(containerOrder, conditionLocator, elapsed);
+
+        PageExtraction extraction = new PageExtraction(
+            (String) raw.get("temperature"), temperatureLocator == null ? null : temperatureLocator.toString(),
+            (String) raw.get("condition"), conditionLocator == null ? null : conditionLocator.toString(),
+            raw.get("skipped") == null ? 0 : ((Number) raw.get("skipped")).intValue());
+        log.info("In-page extraction -> {}", extraction);
+        return extraction;
+    }
+
     public String getTemperature() {
+        try (Metrics.Timer ignored = Metrics.start(Phase.TEMPERATURE_EXTRACTION)) {
+            return readTemperature();
+        }
+    }
+
+    private String readTemperature() {
+        WeatherData captured = getCapturedWeather();
+        if (captured != null) {
+            // The page picks its own units; label the reading only once it is in °C
+            try {
+                double celsius = WeatherData.toCelsius(captured.getTemperature(), capturedUnits);
+                return String.format(Locale.ROOT, "%.2f\u00B0C", celsius);
+            } catch (IllegalArgumentException e) {
+                log.info("Captured reading has unknown units '{}', falling back to page extraction", capturedUnits);
+            }
+        }
+        if (capture != null) {
+            log.info("No weather response captured, falling back to page extraction");
+        }
+        if (scriptExtraction) {
+            PageExtraction extraction = pageExtraction();
+            if (extraction.hasTemperature()) {
+                return extraction.getTemperatureText();
+            }
+            log.info("In-page extraction found no temperature, falling back to DOM locators");
+        }
         try {
-            System.out.println("Trying to find temperature element...");
-            // Try multiple temperature locators with expanded options
-            By[] tempLocators = {
-                // CSS selectors for common temperature classes
-                By.cssSelector(".temperature"),
-                By.cssSelector(".current-temp"),
-                By.cssSelector("[class*='temp']"),
-                By.cssSelector(".temp"),
-                By.cssSelector(".current-container .heading"),
-                
-                // Looking for elements with numeric content + C
-                By.xpath("//span[matches(text(), '\\d+.*C')]"),
-                By.xpath("//div[matches(text(), '\\d+.*C')]"),
-                
-                // Looking for elements containing degree symbols in different encodings
-                By.xpath("//*[contains(text(),'°C') or contains(text(),'°')]"),
-                By.xpath("//*[contains(text(),'\u00B0C') or contains(text(),'\u00B0')]"),
-                
-                // Temperature with number patterns
-                By.xpath("//*[matches(text(), '-?\\d+(\\.\\d+)?\\s*°?C?')]")
-            };
+            log.debug("Trying to find temperature element...");
+            // Try multiple temperature locators, historically fastest winner first
+            List<By> tempLocators = TEMPERATURE.ordered();
+            long tempStart = System.nanoTime();
             
             for (By locator : tempLocators) {
+                long attemptStart = System.nanoTime();
                 try {
                     List<WebElement> elements = driver.findElements(locator);
                     for (WebElement elem : elements) {
                         String text = elem.getText().trim();
-                        if (text.length() > 0 && text.matches(".*\\d+.*")) {
-                            System.out.println("Found temperature using: " + locator + ", text: " + text);
+                        if (TemperatureScanner.containsDigit(text)) {
+                            TEMPERATURE.recordWin(tempLocators, locator, System.nanoTime() - tempStart);
+                            Metrics.recordLocator(locator, System.nanoTime() - attemptStart, true);
+                            log.info("Found temperature using: {}, text: {}", locator, text);
                             return text;
                         }
                     }
                 } catch (Exception ignored) {
                     // Try next locator
                 }
+                Metrics.recordLocator(locator, System.nanoTime() - attemptStart, false);
             }
             
-            // Fallback to page source extraction with more patterns
-            System.out.println("Falling back to page source extraction for temperature...");
-            String pageSource = driver.getPageSource();
-            
-            // Try multiple regex patterns for temperature extraction
-            String[] patterns = {
-                "(-?\\d+(?:\\.\\d+)?)\\s*(?:°C|\\u00B0C|°)",
-                "(-?\\d+(?:\\.\\d+)?)\\s*(?:C)",
-                "temperature[^>]*>(\\d+(?:\\.\\d+)?)",
-                "temp[^>]*>(\\d+(?:\\.\\d+)?)",
-                "(\\d+)\\s*(?:°|\\u00B0|&deg;)(?:C)?"
-            };
-            
-            for (String patternStr : patterns) {
-                try {
-                    java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(patternStr);
-                    java.util.regex.Matcher matcher = pattern.matcher(pageSource);
-                    if (matcher.find()) {
-                        String result = matcher.group(0);
-                        System.out.println("Found temperature in page source using pattern: " + patternStr + ", result: " + result);
-                        return result;
-                    }
-                } catch (Exception e) {
-                    System.out.println("Pattern failed: " + patternStr + " - " + e.getMessage());
-                }
-            }
-            
-            // Last resort: look for ANY number followed by C or any number with a span nearby
-            java.util.regex.Pattern lastPattern = java.util.regex.Pattern.compile("(\\d+)[^<>]{0,5}C");
-            java.util.regex.Matcher lastMatcher = lastPattern.matcher(pageSource);
-            if (lastMatcher.find()) {
-                String result = lastMatcher.group(0);
-                System.out.println("Last resort found temperature: " + result);
+            // Fallback to a single pass over the page source
+            log.info("Falling back to page source extraction for temperature...");
+            TemperatureScanner.Match match = TemperatureScanner.find(driver.getPageSource());
+            if (match != null) {
+                String result = match.getText();
+                log.info("Found temperature in page source ({}), result: {}", match.getForm(), result);
                 return result;
             }
             
-            System.out.println("WARNING: Could not find temperature with any method");
+            log.warn("Could not find temperature with any method");
             return "N/A";
         } catch (Exception e) {
-            System.out.println("Error getting temperature: " + e.getMessage());
+            log.warn("Error getting temperature: {}", e.getMessage());
             return "N/A";
         }
     }
 
     public String getCondition() {
-        try {
-            String DEG = Character.toString((char)0x00B0);
-
-            // Promotional tokens often found in ad/call-to-action text
-            String[] promoTokens = {"professional","collection","collections","dashboard","dashboards","subscribe","pricing","offer","advanced","specialis","signup","register","free trial","get started","extend","premium","specialised","specialized"};
-            String[] weatherKeywords = {"cloud","clear","rain","sun","overcast","mist","drizzle","thunder","fog","snow","haze","few clouds","broken","scattered","gentle breeze"};
-
-            // Only search inside these scoped containers to avoid ads/banners
-            By[] scopedContainers = new By[] {
-                By.cssSelector(".current-container"),
-                By.cssSelector(".current-weather"),
-                By.cssSelector("#weather-widget"),
-                By.cssSelector("main"),
-                By.cssSelector(".right")
-            };
+        try (Metrics.Timer ignored = Metrics.start(Phase.CONDITION_EXTRACTION)) {
+            return readCondition();
+        }
+    }
 
+    private String readCondition() {
+        WeatherData captured = getCapturedWeather();
+        if (captured != null && captured.getDescription() != null) {
+            return captured.getDescription();
+        }
+        try {
             // Remove overlays like assistant or cookie banner before locating condition elements
             removeOverlaysAndWait();
+
+            if (scriptExtraction) {
+                PageExtraction extraction = pageExtraction();
+                if (extraction.hasCondition()) {
+                    return extraction.getCondition();
+                }
+                log.info("In-page extraction found no condition, falling back to DOM locators");
+            }
             
-            for (By containerLocator : scopedContainers) {
+            List<By> containerOrder = CONDITION_CONTAINERS.ordered();
+            long conditionStart = System.nanoTime();
+            for (By containerLocator : containerOrder) {
+                long attemptStart = System.nanoTime();
                 try {
                     List<WebElement> containers = driver.findElements(containerLocator);
                     for (WebElement container : containers) {
                         if (container == null) continue;
 
                         // Prefer specific elements inside container
-                        List<WebElement> candidates = container.findElements(By.cssSelector(".weather-description, .description, p, span"));
+                        List<WebElement> candidates = container.findElements(By.cssSelector(CONDITION_CANDIDATES));
                         for (WebElement cand : candidates) {
                             try {
                                 if (cand == null) continue;
                                 String raw = cand.getText();
                                 if (raw == null) continue;
-                                String norm = raw.replace(Character.toString((char)0x00A0), " ").replace("Â", "").replace("&deg;",""
-                                ).trim();
-                                String lower = norm.toLowerCase();
+                                ConditionClassifier.Classification classification = CONDITIONS.classify(raw);
 
                                 // Skip numeric/temperature-like values
-                                if (lower.matches(".*\\d.*")) {
-                                    System.out.println("DEBUG: Candidate contains digits, skipping. outerHTML=" + cand.getAttribute("outerHTML"));
+                                if (classification.hasDigit()) {
+                                    skipCandidate("contains digits", cand);
                                     continue;
                                 }
-                                if (lower.contains("" + DEG)) {
-                                    System.out.println("DEBUG: Candidate contains degree symbol, skipping. outerHTML=" + cand.getAttribute("outerHTML"));
+                                if (classification.hasDegreeSign()) {
+                                    skipCandidate("contains degree symbol", cand);
                                     continue;
                                 }
 
                                 // Skip obvious promotional text by token
-                                boolean promo = false;
-                                for (String p : promoTokens) {
-                                    if (lower.contains(p)) { promo = true; break; }
-                                }
-                                if (promo) {
-                                    System.out.println("DEBUG: Candidate looks promotional, skipping. outerHTML=" + cand.getAttribute("outerHTML"));
+                                if (classification.isPromo()) {
+                                    skipCandidate("looks promotional", cand);
                                     continue;
                                 }
 
                                 // If candidate contains a weather keyword, accept it
-                                for (String kw : weatherKeywords) {
-                                    if (lower.contains(kw)) {
-                                        String first = norm.split("\\r?\\n")[0].split("\\.")[0].trim();
-                                        if (first.length() >= 3 && first.length() < 120) {
-                                            System.out.println("INFO: Selected condition from scoped container '" + containerLocator + "' -> '" + first + "' (outerHTML=" + cand.getAttribute("outerHTML") + ")");
-                                            return first;
-                                        }
+                                if (classification.hasWeatherKeyword()) {
+                                    String norm = raw.replace(Character.toString((char)0x00A0), " ").replace("Â", "").replace("&deg;", "").trim();
+                                    String first = norm.split("\\r?\\n")[0].split("\\.")[0].trim();
+                                    if (first.length() >= 3 && first.length() < 120) {
+                                        CONDITION_CONTAINERS.recordWin(containerOrder, containerLocator, System.nanoTime() - conditionStart);
+                                        Metrics.recordLocator(containerLocator, System.nanoTime() - attemptStart, true);
+                                        log.info("Selected condition from scoped container '{}' -> '{}'", containerLocator, first);
+                                        log.debug("Selected condition outerHTML={}", Diagnostics.outerHtml(cand));
+                                        return first;
                                     }
                                 }
 
                                 // Skip common weather UI labels (these are not conditions)
-                                String[] labelPatterns = {"humidity","pressure","visibility","wind","uv","dewpoint","feels like","sunrise","sunset","today","tomorrow","now","current","temperature","temp"};
-                                boolean isLabel = false;
-                                for (String label : labelPatterns) {
-                                    if (lower.equals(label) || lower.equals(label + ":") || lower.startsWith(label + ":")) {
-                                        isLabel = true;
-                                        break;
-                                    }
-                                }
-                                if (isLabel) {
-                                    System.out.println("DEBUG: Candidate is a UI label, skipping. outerHTML=" + cand.getAttribute("outerHTML"));
+                                if (classification.isLabel()) {
+                                    skipCandidate("is a UI label", cand);
                                     continue;
                                 }
 
                                 // Conservative fallback removed to avoid selecting non-weather text
 
-                                System.out.println("DEBUG: Candidate did not match criteria, skipped. outerHTML=" + cand.getAttribute("outerHTML"));
+                                skipCandidate("did not match criteria", cand);
 
                             } catch (Exception ignoredCandidate) { }
                         }
                     }
                 } catch (Exception ignoredContainer) { }
+                Metrics.recordLocator(containerLocator, System.nanoTime() - attemptStart, false);
             }
 
             // No broad page-wide fallback to avoid picking promotional content
-            System.out.println("WARNING: No valid condition found inside scoped containers. Returning N/A.");
+            log.warn("No valid condition found inside scoped containers. Returning N/A.");
             return "N/A";
         } catch (Exception e) {
-            System.out.println("ERROR: Error getting condition: " + e.getMessage());
+            log.error("Error getting condition: {}", e.getMessage());
             return "N/A";
         }
     }
 
+    // outerHTML is only read if DEBUG is on or the test fails, instead of one browser round trip per candidate
+    private void skipCandidate(String reason, WebElement candidate) {
+        Object outerHtml = Diagnostics.deferOuterHtml(driver, "Condition candidate " + reason, candidate);
+        log.debug("Condition candidate {}, skipping. outerHTML={}", reason, outerHtml);
+    }
+
+    private static String[] cssSelectors(List<By> locators) {
+        List<String> selectors = new ArrayList<>();
+        for (By locator : locators) {
+            List<String> encoded = LocatorRace.encode(locator);
+            if ("css selector".equals(encoded.get(0))) selectors.add(encoded.get(1));
+        }
+        return selectors.toArray(new String[0]);
+    }
+
+    private static By pick(List<By> order, Object index) {
+        int i = index == null ? -1 : ((Number) index).intValue();
+        return i >= 0 && i < order.size() ? order.get(i) : null;
+    }
+
+    private static String loadScript(String resource) {
+        try (InputStream in = WeatherPage.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Missing script resource: " + resource);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read script resource: " + resource, e);
+        }
+    }
+
     public void explicitWait(By locator) {
         new WebDriverWait(driver, Duration.ofSeconds(10))
             .until(ExpectedConditions.visibilityOfElementLocated(locator));
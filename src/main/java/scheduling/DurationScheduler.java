@@ -0,0 +1,135 @@
+package scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IAlterSuiteListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ISuiteResult;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import utils.ConfigReader;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Orders work longest-first from {@link TestDurations} so a long browser block never starts last
+ * while the other threads sit idle. Before the run it reorders the suite's {@code <test>} blocks
+ * and sizes the thread pools; within each block it orders test methods the same way. Afterwards
+ * it records what each test and block actually took and logs the predicted against the actual
+ * makespan.
+ */
+public class DurationScheduler implements IAlterSuiteListener, IMethodInterceptor, IInvokedMethodListener, ISuiteListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DurationScheduler.class);
+
+    private final Map<String, Long> predictedMakespan = new ConcurrentHashMap<>();
+    private final Map<String, Long> startedAt = new ConcurrentHashMap<>();
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        TestDurations durations = TestDurations.getInstance();
+        int browsers = browserSlots();
+        for (XmlSuite suite : suites) {
+            List<XmlTest> ordered = durations.longestFirst(suite.getTests(), test -> TestDurations.testKey(test.getName()));
+            suite.setTests(ordered);
+
+            // At least the declared thread-count: API and unit blocks wait on I/O, not on a core
+            boolean parallel = suite.getParallel() != XmlSuite.ParallelMode.NONE;
+            int threads = parallel
+                    ? Math.max(1, Math.min(ordered.size(),
+                            ConfigReader.getInt("scheduler.threads", Math.max(suite.getThreadCount(), cores()))))
+                    : 1;
+            if (parallel) suite.setThreadCount(threads);
+            // Parallel data-provider rows each lease a browser
+            suite.setDataProviderThreadCount(browsers);
+
+            List<Long> predicted = ordered.stream()
+                    .map(test -> durations.predictMillis(TestDurations.testKey(test.getName())))
+                    .collect(Collectors.toList());
+            long makespan = TestDurations.makespan(predicted, threads);
+            predictedMakespan.put(suite.getName(), makespan);
+            log.info("Suite '{}': parallel={} on {} threads, {} data-provider threads; order {} predicted {}ms each, makespan {}ms",
+                    suite.getName(), suite.getParallel(), threads, browsers,
+                    ordered.stream().map(XmlTest::getName).collect(Collectors.toList()), predicted, makespan);
+        }
+    }
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        return TestDurations.getInstance().longestFirst(methods, method -> TestDurations.key(
+                method.getMethod().getRealClass(), method.getMethod().getMethodName()));
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        // Skipped tests never ran, so their zero duration says nothing
+        if (!method.isTestMethod() || testResult.getStatus() == ITestResult.SKIP) return;
+        long elapsed = testResult.getEndMillis() - testResult.getStartMillis();
+        TestDurations durations = TestDurations.getInstance();
+        String methodKey = TestDurations.key(testResult.getTestClass().getRealClass(), testResult.getMethod().getMethodName());
+        durations.record(methodKey, elapsed);
+        if (testResult.getParameters().length > 0) {
+            durations.record(TestDurations.key(testResult.getTestClass().getRealClass(),
+                    testResult.getMethod().getMethodName(), testResult.getParameters()), elapsed);
+        }
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+        startedAt.put(suite.getName(), System.currentTimeMillis());
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        TestDurations durations = TestDurations.getInstance();
+        for (ISuiteResult result : suite.getResults().values()) {
+            ITestContext context = result.getTestContext();
+            durations.record(TestDurations.testKey(context.getName()),
+                    context.getEndDate().getTime() - context.getStartDate().getTime());
+        }
+        durations.save();
+
+        Long started = startedAt.remove(suite.getName());
+        Long predicted = predictedMakespan.remove(suite.getName());
+        if (started == null || predicted == null) return;
+        long actual = System.currentTimeMillis() - started;
+        log.info("Suite '{}' makespan: predicted {}, actual {} ({}%)", suite.getName(),
+                Duration.ofMillis(predicted), Duration.ofMillis(actual), predicted == 0 ? 0 : actual * 100 / predicted);
+    }
+
+    // Concurrent browsers the machine can hold: one per core, and no more than free memory allows
+    static int browserSlots() {
+        int configured = ConfigReader.getInt("scheduler.browsers", 0);
+        if (configured > 0) return configured;
+        long browserMb = ConfigReader.getLong("scheduler.browser.memory.mb", 512);
+        long freeMb = freePhysicalMemoryMb();
+        int byMemory = freeMb > 0 ? (int) Math.max(1, freeMb / browserMb) : Integer.MAX_VALUE;
+        int slots = Math.min(cores(), byMemory);
+        // Never more browsers than the pool will hand out
+        return Math.max(1, Math.min(slots, ConfigReader.getInt("driver.pool.size", 3)));
+    }
+
+    private static int cores() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long freePhysicalMemoryMb() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (!(os instanceof com.sun.management.OperatingSystemMXBean)) return -1;
+        return ((com.sun.management.OperatingSystemMXBean) os).getFreePhysicalMemorySize() / (1024 * 1024);
+    }
+}
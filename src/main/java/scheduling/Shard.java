@@ -0,0 +1,97 @@
+package scheduling;
+
+import utils.ConfigReader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of the run when the suite is spread over several JVMs or CI nodes, set with
+ * {@code -Dshard.index} (0-based) and {@code -Dshard.count}. Every node computes the same
+ * partition without talking to the others: items are ranked by a stable 64-bit FNV-1a hash of
+ * their key and dealt round-robin, so shard sizes differ by at most one and an item always lands
+ * on the same shard for the same list. Each list (a {@code <test>} block's methods, the comparison
+ * cities) is dealt separately.
+ */
+public final class Shard {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final Shard SINGLE = new Shard(0, 1);
+
+    private final int index;
+    private final int count;
+
+    public Shard(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Shard index must be in [0, count): index=" + index + ", count=" + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    public static Shard current() {
+        int count = ConfigReader.getInt("shard.count", 1);
+        return count <= 1 ? SINGLE : new Shard(ConfigReader.getInt("shard.index", 0), count);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    /** This shard's items, in their original order. */
+    public <T> List<T> select(List<T> items, Function<T, String> keyOf) {
+        if (!isSharded()) return items;
+        List<Integer> ranked = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            ranked.add(i);
+        }
+        // Ties on the hash fall back to the key so the ranking never depends on list order
+        ranked.sort(Comparator.comparingLong((Integer i) -> hash(keyOf.apply(items.get(i))))
+                .thenComparing(i -> keyOf.apply(items.get(i))));
+        if (ranked.isEmpty()) return new ArrayList<>();
+        // The deal starts at a shard picked by the list itself, so short lists don't all pile onto shard 0
+        int dealer = (int) Math.floorMod(hash(keyOf.apply(items.get(ranked.get(0)))), (long) count);
+        boolean[] mine = new boolean[items.size()];
+        for (int rank = Math.floorMod(index - dealer, count); rank < ranked.size(); rank += count) {
+            mine[ranked.get(rank)] = true;
+        }
+        List<T> selected = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (mine[i]) selected.add(items.get(i));
+        }
+        return selected;
+    }
+
+    // 64-bit FNV-1a over UTF-8: the same on every JVM, unlike identity or seeded hashes
+    static long hash(String key) {
+        long hash = FNV_OFFSET;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // File-name form, e.g. "shard-1-of-4"
+    public String label() {
+        return "shard-" + index + "-of-" + count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,134 @@
+package scheduling;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ISuiteResult;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import utils.ConfigReader;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs only this {@link Shard}'s part of each {@code <test>} block and, at the end of the suite,
+ * writes what it ran to {@code shard.results.directory} as {@code results-shard-<i>-of-<n>.json}
+ * for {@link ShardMerger}. Data-driven methods are kept on every shard; their data providers
+ * split the rows instead (see {@code WeatherComparisonTest#cities}). Does nothing unless
+ * {@code shard.count} is above 1.
+ */
+public class ShardListener implements IMethodInterceptor, ISuiteListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardListener.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private volatile Instant startedAt = Instant.now();
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        Shard shard = Shard.current();
+        if (!shard.isSharded()) return methods;
+        List<IMethodInstance> whole = new ArrayList<>();
+        for (IMethodInstance method : methods) {
+            if (!method.getMethod().isDataDriven()) whole.add(method);
+        }
+        // Filtered in place so the order the earlier interceptors chose (longest first) survives
+        Set<IMethodInstance> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        selected.addAll(shard.select(whole, ShardListener::key));
+        List<IMethodInstance> mine = new ArrayList<>();
+        for (IMethodInstance method : methods) {
+            if (method.getMethod().isDataDriven() || selected.contains(method)) mine.add(method);
+        }
+        log.info("Shard {} runs {} of {} methods in '{}' ({} data-driven, split by row)",
+                shard, mine.size(), methods.size(), context.getName(), methods.size() - whole.size());
+        return mine;
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+        startedAt = Instant.now();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        Shard shard = Shard.current();
+        if (!shard.isSharded()) return;
+        try {
+            log.info("Shard {} results written to {}", shard, writeResults(suite, shard));
+        } catch (IOException e) {
+            log.warn("Could not write shard results: {}", e.getMessage());
+        }
+    }
+
+    private Path writeResults(ISuite suite, Shard shard) throws IOException {
+        List<ITestResult> results = new ArrayList<>();
+        for (ISuiteResult suiteResult : suite.getResults().values()) {
+            ITestContext context = suiteResult.getTestContext();
+            results.addAll(context.getPassedTests().getAllResults());
+            results.addAll(context.getFailedTests().getAllResults());
+            results.addAll(context.getSkippedTests().getAllResults());
+        }
+        results.sort(Comparator.comparingLong(ITestResult::getStartMillis));
+
+        Path dir = Paths.get(ConfigReader.get("shard.results.directory", "target/shards"));
+        Files.createDirectories(dir);
+        Path file = dir.resolve("results-" + shard.label() + ".json");
+        Instant finishedAt = Instant.now();
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonGenerator json = JSON.createGenerator(out)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeStringField("suite", suite.getName());
+            json.writeNumberField("shardIndex", shard.getIndex());
+            json.writeNumberField("shardCount", shard.getCount());
+            json.writeStringField("startedAt", startedAt.toString());
+            json.writeStringField("finishedAt", finishedAt.toString());
+            json.writeNumberField("wallClockMs", finishedAt.toEpochMilli() - startedAt.toEpochMilli());
+            json.writeArrayFieldStart("results");
+            for (ITestResult result : results) {
+                json.writeStartObject();
+                json.writeStringField("test", TestDurations.key(result.getTestClass().getRealClass(),
+                        result.getMethod().getMethodName(), result.getParameters()));
+                json.writeStringField("status", status(result));
+                json.writeNumberField("durationMs", Math.max(0, result.getEndMillis() - result.getStartMillis()));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        return file;
+    }
+
+    private static String status(ITestResult result) {
+        switch (result.getStatus()) {
+            case ITestResult.SUCCESS:
+                return "PASSED";
+            case ITestResult.FAILURE:
+                return "FAILED";
+            default:
+                return "SKIPPED";
+        }
+    }
+
+    private static String key(IMethodInstance method) {
+        return TestDurations.key(method.getMethod().getRealClass(), method.getMethod().getMethodName());
+    }
+}
@@ -0,0 +1,280 @@
+package scheduling;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import metrics.MetricSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Combines the output of sharded runs into one result set. Each input is a directory from one
+ * node (typically its {@code target/}), searched for {@code allure-results/}, the shard's
+ * {@code results-shard-*.json} from {@link ShardListener} and its newest
+ * {@code metrics-*-shard-*.json}. Writes to the output directory:
+ * <ul>
+ *   <li>{@code allure-results/}: every shard's Allure results, ready for {@code allure generate}</li>
+ *   <li>{@code metrics-merged.json}: run-wide latencies, merged from the shards' raw histograms</li>
+ *   <li>{@code shard-summary.json}: per-shard and total counts and wall clock, plus missing shards
+ *       and tests that ran on more than one shard</li>
+ * </ul>
+ * Run with {@code mvn exec:java -Dexec.mainClass=scheduling.ShardMerger -Dexec.args="<output> <shard dir>..."};
+ * exits with status 1 if a shard is missing.
+ */
+public final class ShardMerger {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMerger.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Path output;
+
+    public ShardMerger(Path output) {
+        this.output = output;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            log.error("Usage: ShardMerger <output dir> <shard dir>...");
+            System.exit(2);
+        }
+        List<Path> inputs = Arrays.stream(args).skip(1).map(Paths::get).collect(Collectors.toList());
+        Summary summary = new ShardMerger(Paths.get(args[0])).merge(inputs);
+        System.out.println(summary);
+        System.exit(summary.getMissingShards().isEmpty() ? 0 : 1);
+    }
+
+    public Summary merge(List<Path> inputs) throws IOException {
+        Path allureOut = output.resolve("allure-results");
+        Files.createDirectories(allureOut);
+        Map<Integer, ShardRun> runs = new TreeMap<>();
+        Map<String, Path> newestMetrics = new TreeMap<>();
+        int copied = 0;
+
+        for (Path input : inputs) {
+            List<Path> found;
+            try (Stream<Path> walk = Files.walk(input)) {
+                found = walk.collect(Collectors.toList());
+            }
+            for (Path path : found) {
+                // An input may contain the output, e.g. merging into target/merged from target/
+                if (path.toAbsolutePath().normalize().startsWith(output.toAbsolutePath().normalize())) continue;
+                String name = path.getFileName().toString();
+                if (Files.isDirectory(path) && name.equals("allure-results")) {
+                    copied += copyAllure(path, allureOut);
+                } else if (name.startsWith("results-shard-") && name.endsWith(".json")) {
+                    ShardRun run = readRun(path);
+                    ShardRun previous = runs.putIfAbsent(run.index, run);
+                    if (previous != null) log.warn("Shard {} found twice; keeping {}", run.index, previous.source);
+                } else if (name.startsWith("metrics-") && name.contains("-shard-") && name.endsWith(".json")) {
+                    // File names sort by timestamp, so the last one per shard is its newest run
+                    String shard = name.substring(name.indexOf("-shard-") + 1, name.length() - ".json".length());
+                    newestMetrics.merge(shard, path, (a, b) -> a.getFileName().toString().compareTo(b.getFileName().toString()) >= 0 ? a : b);
+                }
+            }
+        }
+
+        MetricSet latency = new MetricSet();
+        for (Path file : newestMetrics.values()) {
+            try (JsonParser parser = JSON.createParser(file.toFile())) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) latency.merge(MetricSet.readJson(parser));
+            }
+        }
+
+        Summary summary = new Summary(runs, copied);
+        writeMetrics(latency, summary);
+        writeSummary(summary);
+        Files.write(allureOut.resolve("environment.properties"),
+                ("shard.count=" + summary.shardCount + "\n").getBytes(StandardCharsets.UTF_8));
+        log.info("Merged {} shards into {}", runs.size(), output);
+        return summary;
+    }
+
+    // Result, container and attachment files are UUID-named, so shards never overwrite each other's
+    private static int copyAllure(Path from, Path to) throws IOException {
+        int copied = 0;
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Path target = to.resolve(file.getFileName());
+                if (Files.exists(target)) continue;
+                Files.copy(file, target);
+                copied++;
+            }
+        }
+        return copied;
+    }
+
+    private static ShardRun readRun(Path file) throws IOException {
+        ShardRun run = new ShardRun(file);
+        try (JsonParser parser = JSON.createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new IOException("Not a shard results file: " + file);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("shardIndex".equals(field)) {
+                    run.index = parser.getIntValue();
+                } else if ("shardCount".equals(field)) {
+                    run.count = parser.getIntValue();
+                } else if ("wallClockMs".equals(field)) {
+                    run.wallClockMs = parser.getLongValue();
+                } else if ("results".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        String test = null;
+                        String status = null;
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String resultField = parser.getCurrentName();
+                            parser.nextToken();
+                            if ("test".equals(resultField)) test = parser.getText();
+                            else if ("status".equals(resultField)) status = parser.getText();
+                        }
+                        if (test != null) run.statuses.put(test, status);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return run;
+    }
+
+    private void writeMetrics(MetricSet latency, Summary summary) throws IOException {
+        try (Writer out = Files.newBufferedWriter(output.resolve("metrics-merged.json"), StandardCharsets.UTF_8);
+             JsonGenerator json = JSON.createGenerator(out)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeStringField("run", "merged");
+            json.writeNumberField("shardCount", summary.shardCount);
+            latency.writeJson(json, true);
+            json.writeEndObject();
+        }
+    }
+
+    private void writeSummary(Summary summary) throws IOException {
+        try (Writer out = Files.newBufferedWriter(output.resolve("shard-summary.json"), StandardCharsets.UTF_8);
+             JsonGenerator json = JSON.createGenerator(out)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeNumberField("shardCount", summary.shardCount);
+            json.writeNumberField("wallClockMs", summary.getWallClockMs());
+            json.writeNumberField("serialMs", summary.getSerialMs());
+            writeCounts(json, summary.runs.values().stream()
+                    .flatMap(run -> run.statuses.values().stream()).collect(Collectors.toList()));
+            json.writeArrayFieldStart("missingShards");
+            for (int index : summary.getMissingShards()) json.writeNumber(index);
+            json.writeEndArray();
+            json.writeArrayFieldStart("duplicateTests");
+            for (String test : summary.getDuplicateTests()) json.writeString(test);
+            json.writeEndArray();
+            json.writeArrayFieldStart("shards");
+            for (ShardRun run : summary.runs.values()) {
+                json.writeStartObject();
+                json.writeNumberField("shardIndex", run.index);
+                json.writeNumberField("wallClockMs", run.wallClockMs);
+                writeCounts(json, run.statuses.values());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeCounts(JsonGenerator json, Collection<String> statuses) throws IOException {
+        json.writeNumberField("tests", statuses.size());
+        json.writeNumberField("passed", statuses.stream().filter("PASSED"::equals).count());
+        json.writeNumberField("failed", statuses.stream().filter("FAILED"::equals).count());
+        json.writeNumberField("skipped", statuses.stream().filter("SKIPPED"::equals).count());
+    }
+
+    // One shard's results file
+    private static final class ShardRun {
+        private final Path source;
+        private int index;
+        private int count = 1;
+        private long wallClockMs;
+        private final Map<String, String> statuses = new TreeMap<>();
+
+        private ShardRun(Path source) {
+            this.source = source;
+        }
+    }
+
+    /** What was merged: shards found and missing, counts, and wall clock against total shard time. */
+    public static final class Summary {
+        private final Map<Integer, ShardRun> runs;
+        private final int shardCount;
+        private final int allureFiles;
+
+        private Summary(Map<Integer, ShardRun> runs, int allureFiles) {
+            this.runs = runs;
+            this.shardCount = runs.values().stream().mapToInt(run -> run.count).max().orElse(0);
+            this.allureFiles = allureFiles;
+        }
+
+        public int getShardCount() {
+            return shardCount;
+        }
+
+        public List<Integer> getMissingShards() {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < shardCount; i++) {
+                if (!runs.containsKey(i)) missing.add(i);
+            }
+            return missing;
+        }
+
+        // A non-empty list means the shards disagreed on the partition, e.g. different cities configured
+        public List<String> getDuplicateTests() {
+            Map<String, Integer> seen = new TreeMap<>();
+            runs.values().forEach(run -> run.statuses.keySet().forEach(test -> seen.merge(test, 1, Integer::sum)));
+            return seen.entrySet().stream().filter(e -> e.getValue() > 1).map(Map.Entry::getKey).collect(Collectors.toList());
+        }
+
+        public long getTestCount() {
+            return runs.values().stream().mapToLong(run -> run.statuses.size()).sum();
+        }
+
+        public long getFailedCount() {
+            return runs.values().stream().flatMap(run -> run.statuses.values().stream()).filter("FAILED"::equals).count();
+        }
+
+        // The slowest shard: what the sharded run took end to end
+        public long getWallClockMs() {
+            return runs.values().stream().mapToLong(run -> run.wallClockMs).max().orElse(0);
+        }
+
+        // What the same work would take on one node
+        public long getSerialMs() {
+            return runs.values().stream().mapToLong(run -> run.wallClockMs).sum();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("Merged %d/%d shards: %d tests, %d failed, %d Allure files%n",
+                    runs.size(), shardCount, getTestCount(), getFailedCount(), allureFiles));
+            for (ShardRun run : runs.values()) {
+                text.append(String.format("  shard %d: %d tests in %.1fs%n", run.index, run.statuses.size(), run.wallClockMs / 1000.0));
+            }
+            text.append(String.format("Wall clock %.1fs (slowest shard) for %.1fs of shard time", getWallClockMs() / 1000.0, getSerialMs() / 1000.0));
+            if (!getMissingShards().isEmpty()) text.append(String.format("%nMissing shards: %s", getMissingShards()));
+            if (!getDuplicateTests().isEmpty()) text.append(String.format("%nRan on more than one shard: %s", getDuplicateTests()));
+            return text.toString();
+        }
+    }
+}
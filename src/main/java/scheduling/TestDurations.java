@@ -0,0 +1,135 @@
+package scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+import utils.PropertiesFiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Historical test durations, persisted to {@code test.durations.file} between runs. Each key is a
+ * smoothed average (new samples weigh 30%), so one slow run nudges the estimate rather than
+ * replacing it. Keys are {@code Class.method}, {@code Class.method[args]} for data-provider rows
+ * and {@code test:<name>} for whole {@code <test>} blocks.
+ */
+public final class TestDurations {
+
+    private static final Logger log = LoggerFactory.getLogger(TestDurations.class);
+
+    private static final double SMOOTHING = 0.3;
+    private static final String TEST_PREFIX = "test:";
+
+    private static TestDurations instance;
+
+    private final Path file;
+    private final long defaultMillis;
+    private final Map<String, Long> millis = new ConcurrentHashMap<>();
+
+    public TestDurations(Path file, long defaultMillis) {
+        this.file = file;
+        this.defaultMillis = defaultMillis;
+        load();
+    }
+
+    public static synchronized TestDurations getInstance() {
+        if (instance == null) {
+            instance = new TestDurations(
+                    Paths.get(ConfigReader.get("test.durations.file", "target/test-durations.properties")),
+                    ConfigReader.getLong("scheduler.default.duration.ms", 5000));
+        }
+        return instance;
+    }
+
+    public static String key(Class<?> testClass, String method, Object... parameters) {
+        String key = testClass.getSimpleName() + "." + method;
+        if (parameters == null || parameters.length == 0) return key;
+        return key + "[" + Arrays.stream(parameters).map(String::valueOf).collect(Collectors.joining(",")) + "]";
+    }
+
+    public static String testKey(String testName) {
+        return TEST_PREFIX + testName;
+    }
+
+    // Never-seen keys are predicted at the mean of known keys of the same kind, so new tests land mid-queue
+    public long predictMillis(String key) {
+        Long known = millis.get(key);
+        if (known != null) return known;
+        boolean block = key.startsWith(TEST_PREFIX);
+        return (long) millis.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(TEST_PREFIX) == block)
+                .mapToLong(Map.Entry::getValue)
+                .average().orElse(defaultMillis);
+    }
+
+    public void record(String key, long elapsedMillis) {
+        millis.merge(key, Math.max(0, elapsedMillis),
+                (previous, sample) -> Math.round(previous * (1 - SMOOTHING) + sample * SMOOTHING));
+    }
+
+    /** Orders items longest predicted duration first (the LPT rule); ties keep their declared order. */
+    public <T> List<T> longestFirst(Collection<T> items, Function<T, String> keyOf) {
+        List<T> ordered = new ArrayList<>(items);
+        ordered.sort(Comparator.comparingLong((T item) -> predictMillis(keyOf.apply(item))).reversed());
+        return ordered;
+    }
+
+    /** Makespan of running the given durations, in this order, on {@code workers} parallel workers. */
+    public static long makespan(List<Long> durations, int workers) {
+        PriorityQueue<Long> loads = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(1, workers); i++) {
+            loads.add(0L);
+        }
+        long makespan = 0;
+        for (long duration : durations) {
+            long finish = loads.poll() + duration;
+            loads.add(finish);
+            makespan = Math.max(makespan, finish);
+        }
+        return makespan;
+    }
+
+    public synchronized void save() {
+        Properties out = new Properties();
+        millis.forEach((key, value) -> out.setProperty(key, Long.toString(value)));
+        try {
+            PropertiesFiles.storeAtomically(out, file, "Smoothed test durations in milliseconds");
+        } catch (IOException e) {
+            log.warn("Could not save test durations to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) return;
+        Properties persisted = new Properties();
+        try (InputStream stream = Files.newInputStream(file)) {
+            persisted.load(stream);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable test durations {}: {}", file, e.getMessage());
+            return;
+        }
+        for (String key : persisted.stringPropertyNames()) {
+            try {
+                millis.put(key, Long.parseLong(persisted.getProperty(key).trim()));
+            } catch (NumberFormatException ignored) {
+                // Corrupt line: the test is treated as never seen
+            }
+        }
+        log.debug("Loaded {} test durations from {}", millis.size(), file);
+    }
+}
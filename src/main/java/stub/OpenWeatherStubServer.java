@@ -0,0 +1,335 @@
+package stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.WeatherData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.ConfigReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for api.openweathermap.org and the openweathermap.org search page.
+ * Serves recorded fixtures from {@code /fixtures} on the classpath and can inject latency,
+ * jitter, server errors and 429 throttling so the API and UI paths can be driven offline.
+ */
+public class OpenWeatherStubServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenWeatherStubServer.class);
+
+    private static final String FIXTURE_ROOT = "/fixtures/";
+    private static final String WEATHER_FIXTURES = FIXTURE_ROOT + "weather/";
+    private static final int GROUP_LIMIT = 20;
+
+    private final int requestedPort;
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double errorRate;
+    private volatile int rateLimitPerSecond;
+
+    private final Map<String, byte[]> fixtures = new HashMap<>();
+    private final Map<Integer, byte[]> fixturesById = new HashMap<>();
+    private final AtomicLong rateWindowStart = new AtomicLong();
+    private final AtomicInteger rateWindowCount = new AtomicInteger();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong groupRequestCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public OpenWeatherStubServer(int port) {
+        this.requestedPort = port;
+    }
+
+    // Builds a server from the stub.* keys in config.properties
+    public static OpenWeatherStubServer fromConfig() {
+        return new OpenWeatherStubServer(ConfigReader.getInt("stub.port", 0))
+                .withLatency(ConfigReader.getLong("stub.latency.ms", 0), ConfigReader.getLong("stub.jitter.ms", 0))
+                .withErrorRate(ConfigReader.getDouble("stub.error.rate", 0.0))
+                .withRateLimit(ConfigReader.getInt("stub.rate.limit.per.second", 0));
+    }
+
+    public OpenWeatherStubServer withLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        return this;
+    }
+
+    // Fraction of requests (0.0 - 1.0) answered with HTTP 500
+    public OpenWeatherStubServer withErrorRate(double errorRate) {
+        this.errorRate = Math.max(0.0, Math.min(1.0, errorRate));
+        return this;
+    }
+
+    // Requests above this many per second are answered with HTTP 429; 0 disables throttling
+    public OpenWeatherStubServer withRateLimit(int requestsPerSecond) {
+        this.rateLimitPerSecond = Math.max(0, requestsPerSecond);
+        return this;
+    }
+
+    public synchronized OpenWeatherStubServer start() {
+        if (server != null) return this;
+        loadFixtures();
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", requestedPort), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to bind stub server on port " + requestedPort, e);
+        }
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "weather-stub-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/data/2.5/weather", this::handleWeather);
+        server.createContext("/data/2.5/group", this::handleGroup);
+        server.createContext("/data/2.5/find", this::handleFind);
+        server.createContext("/", this::handlePage);
+        server.start();
+        log.info("OpenWeather stub listening on {}", getBaseUrl());
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server == null) return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        log.info("OpenWeather stub stopped after {} requests ({} throttled, {} failed)",
+                requestCount.get(), throttledCount.get(), failedCount.get());
+    }
+
+    public int getPort() {
+        if (server == null) throw new IllegalStateException("Stub server is not running");
+        return server.getAddress().getPort();
+    }
+
+    // Value for api.base.url when pointing WeatherApiClient at this stub
+    public String getApiBaseUrl() {
+        return getBaseUrl() + "/data/2.5";
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + getPort();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    // Successful /group calls, so tests can tell batched lookups from by-name ones
+    public long getGroupRequestCount() {
+        return groupRequestCount.get();
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    private void handleWeather(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (!admit(exchange, query)) return;
+
+        String city = query.get("q");
+        String id = query.get("id");
+        byte[] body = city != null ? fixtures.get(fixtureKey(city)) : id != null ? fixtureById(id) : null;
+        if (body == null) {
+            sendJson(exchange, 404, "{\"cod\":\"404\",\"message\":\"city not found\"}");
+            return;
+        }
+        send(exchange, 200, "application/json; charset=utf-8", body);
+    }
+
+    // Several cities by ID in one call, like the real endpoint: unknown IDs are left out, more than 20 is an error
+    private void handleGroup(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (!admit(exchange, query)) return;
+
+        String[] ids = query.getOrDefault("id", "").split(",");
+        if (ids.length > GROUP_LIMIT) {
+            sendJson(exchange, 400, "{\"cod\":\"400\",\"message\":\"Too many ids (at most " + GROUP_LIMIT + ")\"}");
+            return;
+        }
+        StringBuilder list = new StringBuilder();
+        int count = 0;
+        for (String id : ids) {
+            byte[] body = fixtureById(id);
+            if (body == null) continue;
+            if (count++ > 0) list.append(',');
+            list.append(new String(body, StandardCharsets.UTF_8));
+        }
+        groupRequestCount.incrementAndGet();
+        sendJson(exchange, 200, "{\"cnt\":" + count + ",\"list\":[" + list + "]}");
+    }
+
+    // Prefix search used by the stub page for its suggestion dropdown
+    private void handleFind(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (!admit(exchange, query)) return;
+
+        String prefix = fixtureKey(query.getOrDefault("q", ""));
+        StringBuilder list = new StringBuilder();
+        int count = 0;
+        for (Map.Entry<String, byte[]> entry : fixtures.entrySet()) {
+            if (prefix.isEmpty() || !entry.getKey().startsWith(prefix)) continue;
+            if (count++ > 0) list.append(',');
+            list.append(new String(entry.getValue(), StandardCharsets.UTF_8));
+        }
+        sendJson(exchange, 200, "{\"message\":\"accurate\",\"cod\":\"200\",\"count\":" + count + ",\"list\":[" + list + "]}");
+    }
+
+    private void handlePage(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!"/".equals(path) && !"/index.html".equals(path)) {
+            send(exchange, 404, "text/plain; charset=utf-8", "Not found".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        delay();
+        requestCount.incrementAndGet();
+        send(exchange, 200, "text/html; charset=utf-8", readResource(FIXTURE_ROOT + "weather-page.html"));
+    }
+
+    // Applies latency, throttling, fault injection and key validation. Returns false when a response was already sent.
+    private boolean admit(HttpExchange exchange, Map<String, String> query) throws IOException {
+        requestCount.incrementAndGet();
+        delay();
+
+        if (isThrottled()) {
+            throttledCount.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendJson(exchange, 429, "{\"cod\":429,\"message\":\"Your account is temporary blocked due to exceeding of requests limitation.\"}");
+            return false;
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            failedCount.incrementAndGet();
+            sendJson(exchange, 500, "{\"cod\":500,\"message\":\"Internal error (injected by stub)\"}");
+            return false;
+        }
+        String appId = query.get("appid");
+        if (appId == null || appId.isEmpty()) {
+            sendJson(exchange, 401, "{\"cod\":401,\"message\":\"Invalid API key. Please see https://openweathermap.org/faq#error401 for more info.\"}");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isThrottled() {
+        int limit = rateLimitPerSecond;
+        if (limit <= 0) return false;
+        long now = System.nanoTime();
+        long windowStart = rateWindowStart.get();
+        if (now - windowStart >= 1_000_000_000L && rateWindowStart.compareAndSet(windowStart, now)) {
+            rateWindowCount.set(0);
+        }
+        return rateWindowCount.incrementAndGet() > limit;
+    }
+
+    private void delay() {
+        long delay = latencyMillis;
+        long jitter = jitterMillis;
+        if (jitter > 0) {
+            delay += ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+        }
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // null for unknown or malformed IDs
+    private byte[] fixtureById(String id) {
+        try {
+            return fixturesById.get(Integer.parseInt(id.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void loadFixtures() {
+        String manifest = new String(readResource(WEATHER_FIXTURES + "manifest.txt"), StandardCharsets.UTF_8);
+        for (String line : manifest.split("\\r?\\n")) {
+            String name = line.trim();
+            if (name.isEmpty() || name.startsWith("#")) continue;
+            byte[] body = readResource(WEATHER_FIXTURES + name + ".json");
+            fixtures.put(fixtureKey(name), body);
+            fixturesById.put(WeatherData.fromJson(body).getCityId(), body);
+        }
+        log.debug("Loaded {} weather fixtures", fixtures.size());
+    }
+
+    // "New York,US" -> "new-york"
+    private static String fixtureKey(String city) {
+        int comma = city.indexOf(',');
+        String name = comma >= 0 ? city.substring(0, comma) : city;
+        return name.trim().toLowerCase(Locale.ROOT).replace(' ', '-');
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static byte[] readResource(String path) {
+        try (InputStream in = OpenWeatherStubServer.class.getResourceAsStream(path)) {
+            if (in == null) throw new IllegalStateException("Missing stub fixture: " + path);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read stub fixture: " + path, e);
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "application/json; charset=utf-8", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Standalone mode: mvn exec:java -Dexec.mainClass=stub.OpenWeatherStubServer
+    public static void main(String[] args) throws InterruptedException {
+        OpenWeatherStubServer stub = fromConfig().start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        log.info("Set api.base.url={} to use it; press Ctrl+C to stop", stub.getApiBaseUrl());
+        Thread.currentThread().join();
+    }
+}
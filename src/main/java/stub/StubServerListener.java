@@ -0,0 +1,31 @@
+package stub;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import utils.ConfigReader;
+
+/**
+ * Starts {@link OpenWeatherStubServer} for the suite when {@code stub.enabled=true} and points
+ * {@code api.base.url} and {@code ui.url} at it, so the whole run works without network access.
+ */
+public class StubServerListener implements ISuiteListener {
+
+    private OpenWeatherStubServer stub;
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (!ConfigReader.getBoolean("stub.enabled", false) || stub != null) return;
+        stub = OpenWeatherStubServer.fromConfig().start();
+        System.setProperty("api.base.url", stub.getApiBaseUrl());
+        System.setProperty("ui.url", stub.getBaseUrl());
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (stub == null) return;
+        stub.close();
+        stub = null;
+        System.clearProperty("api.base.url");
+        System.clearProperty("ui.url");
+    }
+}
@@ -0,0 +1,264 @@
+package utils;
+
+import model.City;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index over the bundled city list ({@code /cities.csv}). Names are normalized
+ * (accents folded, case and punctuation ignored) and stored in a compact radix trie, so exact
+ * lookups and prefix completion cost one walk over the query's characters regardless of how
+ * many cities are loaded. Cities sharing a name keep their file order; the first one is what a
+ * bare name resolves to.
+ */
+public final class CityIndex {
+
+    private static final String RESOURCE = "/cities.csv";
+    private static final int[] NO_CITIES = new int[0];
+
+    private static volatile CityIndex defaultIndex;
+
+    private final List<City> cities = new ArrayList<>();
+    private final Map<Integer, City> byId = new HashMap<>();
+    private final Node root = new Node("");
+
+    public CityIndex(List<City> cities) {
+        for (City city : cities) {
+            int index = this.cities.size();
+            this.cities.add(city);
+            byId.putIfAbsent(city.getId(), city);
+            String key = normalize(city.getName());
+            if (!key.isEmpty()) insert(key, index);
+        }
+    }
+
+    // The bundled list, loaded on first use
+    public static CityIndex getDefault() {
+        CityIndex index = defaultIndex;
+        if (index == null) {
+            synchronized (CityIndex.class) {
+                index = defaultIndex;
+                if (index == null) {
+                    index = new CityIndex(load(RESOURCE));
+                    defaultIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Resolves "London", "london, GB" or "Sao Paulo" to one city. A trailing country code picks
+     * among same-named cities; without one the first listed wins. Returns null if no city matches.
+     */
+    public City resolve(String query) {
+        String name = query;
+        String country = null;
+        int comma = query.lastIndexOf(',');
+        if (comma >= 0) {
+            name = query.substring(0, comma);
+            country = query.substring(comma + 1).trim();
+        }
+        for (City city : find(name)) {
+            if (country == null || country.isEmpty() || city.getCountry().equalsIgnoreCase(country)) return city;
+        }
+        return null;
+    }
+
+    // Every city whose normalized name equals the query's, in file order
+    public List<City> find(String name) {
+        Node node = exactNode(normalize(name));
+        return node == null ? Collections.emptyList() : toCities(node.cities);
+    }
+
+    // Cities whose normalized name starts with the prefix, alphabetically, at most limit of them
+    public List<City> startingWith(String prefix, int limit) {
+        String key = normalize(prefix);
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) return Collections.emptyList();
+            int common = commonPrefix(child.label, key, matched);
+            if (matched + common == key.length()) {
+                // The prefix ends inside or at the end of this edge: its whole subtree matches
+                node = child;
+                matched = key.length();
+            } else if (common < child.label.length()) {
+                return Collections.emptyList();
+            } else {
+                node = child;
+                matched += common;
+            }
+        }
+        List<City> found = new ArrayList<>();
+        collect(node, found, limit);
+        return found;
+    }
+
+    public City byId(int id) {
+        return byId.get(id);
+    }
+
+    public int size() {
+        return cities.size();
+    }
+
+    /** Lower case, accents and punctuation dropped, whitespace collapsed: "S&atilde;o  Paulo!" -&gt; "sao paulo". */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && out.length() > 0) out.append(' ');
+                pendingSpace = false;
+                out.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return out.toString();
+    }
+
+    private Node exactNode(String key) {
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null || !key.startsWith(child.label, matched)) return null;
+            node = child;
+            matched += child.label.length();
+        }
+        return node;
+    }
+
+    private void insert(String key, int city) {
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) {
+                Node leaf = new Node(key.substring(matched));
+                node.addChild(leaf);
+                node = leaf;
+                break;
+            }
+            int common = commonPrefix(child.label, key, matched);
+            if (common < child.label.length()) child = node.split(child, common);
+            node = child;
+            matched += common;
+        }
+        node.cities = Arrays.copyOf(node.cities, node.cities.length + 1);
+        node.cities[node.cities.length - 1] = city;
+    }
+
+    private void collect(Node node, List<City> found, int limit) {
+        for (int city : node.cities) {
+            if (found.size() >= limit) return;
+            found.add(cities.get(city));
+        }
+        for (Node child : node.children) {
+            if (found.size() >= limit) return;
+            collect(child, found, limit);
+        }
+    }
+
+    private List<City> toCities(int[] indexes) {
+        List<City> result = new ArrayList<>(indexes.length);
+        for (int index : indexes) result.add(cities.get(index));
+        return result;
+    }
+
+    // Length of the common prefix of label and key[from..]
+    private static int commonPrefix(String label, String key, int from) {
+        int max = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(from + i)) i++;
+        return i;
+    }
+
+    // CSV: id,name,country,lat,lon with a header row; '#' lines are comments
+    static List<City> load(String resource) {
+        try (InputStream in = CityIndex.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Missing city list: " + resource);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<City> cities = new ArrayList<>();
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#") || line.startsWith("id,")) continue;
+                String[] fields = line.split(",");
+                if (fields.length != 5) {
+                    throw new IllegalStateException(resource + ":" + lineNumber + " should have 5 fields: " + line);
+                }
+                cities.add(new City(Integer.parseInt(fields[0].trim()), fields[1].trim(), fields[2].trim(),
+                        Double.parseDouble(fields[3].trim()), Double.parseDouble(fields[4].trim())));
+            }
+            return cities;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read city list " + resource, e);
+        }
+    }
+
+    // Radix-trie node: edges carry whole label runs, children are kept sorted by first character
+    private static final class Node {
+        private String label;
+        private Node[] children = new Node[0];
+        private int[] cities = NO_CITIES;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) low = mid + 1;
+                else if (c > first) high = mid - 1;
+                else return children[mid];
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            char first = child.label.charAt(0);
+            int at = 0;
+            while (at < children.length && children[at].label.charAt(0) < first) at++;
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+        }
+
+        // Splits child's edge after `at` characters; returns the new intermediate node
+        Node split(Node child, int at) {
+            Node middle = new Node(child.label.substring(0, at));
+            child.label = child.label.substring(at);
+            middle.children = new Node[]{child};
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) children[i] = middle;
+            }
+            return middle;
+        }
+    }
+}
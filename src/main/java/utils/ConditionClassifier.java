@@ -0,0 +1,273 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Classifies weather condition text in one linear pass. All promo tokens, UI labels, weather
+ * keywords and related-condition groups are compiled once into an Aho-Corasick automaton, so a
+ * candidate costs one table lookup per character no matter how many keywords there are. Matching
+ * is case-insensitive; NBSP counts as a space and the stray Â of mis-decoded UTF-8 is ignored.
+ */
+public final class ConditionClassifier {
+
+    // Promotional tokens often found in ad/call-to-action text
+    public static final List<String> PROMO_TOKENS = Collections.unmodifiableList(Arrays.asList(
+            "professional", "collection", "collections", "dashboard", "dashboards", "subscribe", "pricing", "offer",
+            "advanced", "specialis", "signup", "register", "free trial", "get started", "extend", "premium",
+            "specialised", "specialized"));
+
+    public static final List<String> WEATHER_KEYWORDS = Collections.unmodifiableList(Arrays.asList(
+            "cloud", "clear", "rain", "sun", "overcast", "mist", "drizzle", "thunder", "fog", "snow", "haze",
+            "few clouds", "broken", "scattered", "gentle breeze"));
+
+    // Common weather UI labels (these are not conditions); only match at the start of the text
+    public static final List<String> LABEL_PATTERNS = Collections.unmodifiableList(Arrays.asList(
+            "humidity", "pressure", "visibility", "wind", "uv", "dewpoint", "feels like", "sunrise", "sunset",
+            "today", "tomorrow", "now", "current", "temperature", "temp"));
+
+    // Conditions in the same group are treated as related when comparing API and UI text
+    public static final Map<String, List<String>> RELATED_GROUPS;
+
+    static {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        groups.put("clouds", Arrays.asList("cloud", "clouds", "cloudy", "overcast", "partly", "mostly"));
+        groups.put("rain", Arrays.asList("rain", "rainy", "drizzle", "shower", "precipitation"));
+        groups.put("clear", Arrays.asList("clear", "sunny", "sun", "bright"));
+        groups.put("snow", Arrays.asList("snow", "snowy", "sleet", "blizzard"));
+        groups.put("fog", Arrays.asList("fog", "mist", "haze", "foggy"));
+        RELATED_GROUPS = Collections.unmodifiableMap(groups);
+    }
+
+    public static final ConditionClassifier DEFAULT =
+            new ConditionClassifier(PROMO_TOKENS, WEATHER_KEYWORDS, LABEL_PATTERNS, RELATED_GROUPS);
+
+    private static final int PROMO = 1;
+    private static final int LABEL = 1 << 1;
+    private static final int WEATHER = 1 << 2;
+    private static final int DIGIT = 1 << 3;
+    private static final int DEGREE = 1 << 4;
+    private static final int GROUP_SHIFT = 8;
+    private static final int MAX_GROUPS = 32 - GROUP_SHIFT;
+
+    // 0 = any other character, 1..26 = a..z, 27 = space
+    private static final int OTHER = 0;
+    private static final int SPACE = 27;
+    private static final int ALPHABET = 28;
+
+    private final int[] transitions;
+    // Position-free matches (promo, weather, groups) ending in each state, fail chain included
+    private final int[] outputs;
+    private final boolean[] labelEnds;
+    private final int[] depths;
+    private final List<String> groupNames;
+
+    public ConditionClassifier(Collection<String> promoTokens, Collection<String> weatherKeywords,
+                               Collection<String> labels, Map<String, ? extends Collection<String>> groups) {
+        if (groups.size() > MAX_GROUPS) {
+            throw new IllegalArgumentException("At most " + MAX_GROUPS + " condition groups are supported, got " + groups.size());
+        }
+        Trie trie = new Trie();
+        for (String token : promoTokens) trie.add(token, PROMO, false);
+        for (String keyword : weatherKeywords) trie.add(keyword, WEATHER, false);
+        for (String label : labels) trie.add(label, 0, true);
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, ? extends Collection<String>> group : groups.entrySet()) {
+            int bit = 1 << (GROUP_SHIFT + names.size());
+            for (String keyword : group.getValue()) trie.add(keyword, bit, false);
+            names.add(group.getKey());
+        }
+        this.groupNames = Collections.unmodifiableList(names);
+
+        int states = trie.size();
+        this.transitions = new int[states * ALPHABET];
+        this.outputs = new int[states];
+        this.labelEnds = new boolean[states];
+        this.depths = new int[states];
+        compile(trie);
+    }
+
+    public Classification classify(CharSequence text) {
+        if (text == null) return new Classification(0);
+        int state = 0;
+        int flags = 0;
+        int position = 0;
+        int firstPosition = -1;
+        int labelEnd = -1;
+        boolean label = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\u00C2') continue;
+            int symbol = symbol(c);
+            if (firstPosition < 0 && symbol != SPACE) firstPosition = position;
+
+            // A label counts when it is the whole text or is directly followed by ':'
+            if (labelEnd >= 0 && !label) {
+                if (c == ':' && position == labelEnd + 1) label = true;
+                else if (symbol != SPACE) labelEnd = -1;
+            }
+            if (c >= '0' && c <= '9') flags |= DIGIT;
+            else if (c == '\u00B0') flags |= DEGREE;
+
+            state = transitions[state * ALPHABET + symbol];
+            flags |= outputs[state];
+            if (labelEnds[state] && firstPosition >= 0 && depths[state] == position - firstPosition + 1) {
+                labelEnd = position;
+            }
+            position++;
+        }
+        if (label || labelEnd >= 0) flags |= LABEL;
+        return new Classification(flags);
+    }
+
+    // True when both texts mention a keyword from the same related-condition group
+    public boolean areRelated(CharSequence first, CharSequence second) {
+        return classify(first).sharesGroupWith(classify(second));
+    }
+
+    public List<String> getGroupNames() {
+        return groupNames;
+    }
+
+    private void compile(Trie trie) {
+        // Breadth-first so every fail link points at an already finished state
+        int[] fail = new int[trie.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int child = trie.child(0, symbol);
+            transitions[symbol] = child;
+            if (child > 0) queue.add(child);
+        }
+        copyNode(trie, 0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            copyNode(trie, state);
+            outputs[state] |= outputs[fail[state]];
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int child = trie.child(state, symbol);
+                int fallback = transitions[fail[state] * ALPHABET + symbol];
+                if (child > 0) {
+                    fail[child] = fallback;
+                    transitions[state * ALPHABET + symbol] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * ALPHABET + symbol] = fallback;
+                }
+            }
+        }
+    }
+
+    private void copyNode(Trie trie, int state) {
+        outputs[state] |= trie.outputs.get(state);
+        labelEnds[state] = trie.labelEnds.get(state);
+        depths[state] = trie.depths.get(state);
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a' + 1;
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 1;
+        if (c == ' ' || c == '\u00A0' || c == '\t' || c == '\n' || c == '\r') return SPACE;
+        return OTHER;
+    }
+
+    /** Result of {@link #classify(CharSequence)}. */
+    public final class Classification {
+        private final int flags;
+
+        Classification(int flags) {
+            this.flags = flags;
+        }
+
+        public boolean isPromo() {
+            return (flags & PROMO) != 0;
+        }
+
+        // Text is a UI label such as "Humidity" or "Wind: 3m/s"
+        public boolean isLabel() {
+            return (flags & LABEL) != 0;
+        }
+
+        public boolean hasWeatherKeyword() {
+            return (flags & WEATHER) != 0;
+        }
+
+        public boolean hasDigit() {
+            return (flags & DIGIT) != 0;
+        }
+
+        public boolean hasDegreeSign() {
+            return (flags & DEGREE) != 0;
+        }
+
+        public boolean sharesGroupWith(Classification other) {
+            return ((flags & other.flags) >>> GROUP_SHIFT) != 0;
+        }
+
+        public List<String> getGroups() {
+            List<String> groups = new ArrayList<>();
+            for (int i = 0; i < groupNames.size(); i++) {
+                if ((flags & (1 << (GROUP_SHIFT + i))) != 0) groups.add(groupNames.get(i));
+            }
+            return groups;
+        }
+
+        @Override
+        public String toString() {
+            return "Classification{promo=" + isPromo() + ", label=" + isLabel() + ", weather=" + hasWeatherKeyword()
+                    + ", groups=" + getGroups() + "}";
+        }
+    }
+
+    // Mutable keyword trie; only lives while the automaton is compiled
+    private static final class Trie {
+        final List<int[]> children = new ArrayList<>();
+        final List<Integer> outputs = new ArrayList<>();
+        final List<Boolean> labelEnds = new ArrayList<>();
+        final List<Integer> depths = new ArrayList<>();
+
+        Trie() {
+            newNode(0);
+        }
+
+        int size() {
+            return children.size();
+        }
+
+        int child(int state, int symbol) {
+            return children.get(state)[symbol];
+        }
+
+        void add(String keyword, int output, boolean label) {
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int symbol = symbol(keyword.charAt(i));
+                if (symbol == OTHER) {
+                    throw new IllegalArgumentException("Keywords may only contain letters and spaces: '" + keyword + "'");
+                }
+                int next = children.get(state)[symbol];
+                if (next == 0) {
+                    next = newNode(i + 1);
+                    children.get(state)[symbol] = next;
+                }
+                state = next;
+            }
+            outputs.set(state, outputs.get(state) | output);
+            if (label) labelEnds.set(state, true);
+        }
+
+        private int newNode(int depth) {
+            children.add(new int[ALPHABET]);
+            outputs.add(0);
+            labelEnds.add(false);
+            depths.add(depth);
+            return children.size() - 1;
+        }
+    }
+}
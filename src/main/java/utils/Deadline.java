@@ -0,0 +1,53 @@
+package utils;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * A fixed point in time shared by a chain of waits, so the whole chain is bounded by one
+ * timeout instead of the sum of each step's timeout.
+ */
+public final class Deadline {
+
+    private final LongSupplier nanoClock;
+    private final long deadlineNanos;
+    private final Duration budget;
+
+    private Deadline(Duration budget, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.budget = budget;
+        this.deadlineNanos = nanoClock.getAsLong() + budget.toNanos();
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(budget, System::nanoTime);
+    }
+
+    // nanoClock stands in for System.nanoTime, e.g. a fake clock in tests
+    public static Deadline after(Duration budget, LongSupplier nanoClock) {
+        return new Deadline(budget, nanoClock);
+    }
+
+    public Duration remaining() {
+        long left = deadlineNanos - nanoClock.getAsLong();
+        return left > 0 ? Duration.ofNanos(left) : Duration.ZERO;
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - nanoClock.getAsLong() <= 0;
+    }
+
+    // Sub-deadline ending once the given fraction of the remaining time is spent, never past this one
+    public Deadline slice(double fraction) {
+        return new Deadline(Duration.ofNanos((long) (remaining().toNanos() * Math.max(0.0, Math.min(1.0, fraction)))), nanoClock);
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{" + remaining().toMillis() + "ms of " + budget.toMillis() + "ms left}";
+    }
+}
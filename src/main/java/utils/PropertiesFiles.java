@@ -0,0 +1,40 @@
+package utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Writes the statistics files kept between runs (locator stats, city IDs, test durations). Each is
+ * saved from a shutdown hook, possibly by several JVMs at once when runs are sharded, so a reader
+ * must never see a half-written file.
+ */
+public final class PropertiesFiles {
+
+    private PropertiesFiles() {
+    }
+
+    // Writes to a temporary file next to `file`, then renames it over `file` in one step
+    public static void storeAtomically(Properties properties, Path file, String comment) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path parent = target.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temp)) {
+                properties.store(stream, comment);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
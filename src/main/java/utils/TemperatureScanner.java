@@ -0,0 +1,234 @@
+package utils;
+
+/**
+ * Single-pass temperature scanner for page source and element text. Numbers are parsed in place
+ * while walking the characters, so a multi-megabyte page source costs one linear scan and no
+ * intermediate strings, patterns or matchers.
+ *
+ * <p>Recognised forms, strongest first: a number followed by a degree sign ({@code °C}, {@code °},
+ * {@code ℃}, {@code &deg;}, {@code &#176;}, {@code &#xB0;}); a number followed by a bare {@code C};
+ * a number that is the first text of an element whose tag mentions "temp". Spaces, NBSP,
+ * {@code &nbsp;} and the {@code Â} left behind by UTF-8 read as Latin-1 may sit between the number
+ * and its unit.
+ */
+public final class TemperatureScanner {
+
+    // Plausible surface air temperatures in Celsius; rejects wind directions, years and the like
+    public static final double MIN_CELSIUS = -90;
+    public static final double MAX_CELSIUS = 60;
+
+    // How far back a '>' may be from its '<' for the tag to be inspected
+    private static final int MAX_TAG_LENGTH = 256;
+
+    private TemperatureScanner() {
+    }
+
+    public enum Form {
+        DEGREE, BARE_C, TAGGED, PLAIN
+    }
+
+    /** First temperature of the strongest marked form found in {@code text}, or null. */
+    public static Match find(CharSequence text) {
+        return scan(text, false);
+    }
+
+    /**
+     * Temperature in an element's text: the strongest marked form if there is one, otherwise the
+     * first plausible plain number. Returns {@code Double.NaN} when there is none.
+     */
+    public static double parse(CharSequence text) {
+        Match match = scan(text, true);
+        return match != null ? match.getValue() : Double.NaN;
+    }
+
+    public static boolean containsDigit(CharSequence text) {
+        if (text == null) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (isDigit(text.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    private static Match scan(CharSequence text, boolean includePlain) {
+        if (text == null) return null;
+        Match bareC = null;
+        Match tagged = null;
+        Match plain = null;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!isDigit(text.charAt(i)) || !startsNumber(text, i)) {
+                i++;
+                continue;
+            }
+
+            int digitStart = i;
+            boolean negative = i > 0 && isMinus(text.charAt(i - 1)) && (i < 2 || !isLetterOrDigit(text.charAt(i - 2)));
+            int start = negative ? i - 1 : i;
+
+            // Parse digits and an optional fraction straight from the characters
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            while (i < length && isDigit(text.charAt(i))) {
+                if (digits++ < 15) mantissa = mantissa * 10 + (text.charAt(i) - '0');
+                else scale--;
+                i++;
+            }
+            if (i + 1 < length && text.charAt(i) == '.' && isDigit(text.charAt(i + 1))) {
+                i++;
+                while (i < length && isDigit(text.charAt(i))) {
+                    if (digits++ < 15) {
+                        mantissa = mantissa * 10 + (text.charAt(i) - '0');
+                        scale++;
+                    }
+                    i++;
+                }
+            }
+            int numberEnd = i;
+            double value = toDouble(mantissa, scale, negative);
+            if (value < MIN_CELSIUS || value > MAX_CELSIUS) continue;
+
+            int unit = skipSeparators(text, numberEnd);
+            int degreeEnd = matchDegree(text, unit);
+            if (degreeEnd > 0) {
+                // Swallow the C of \u00B0C so the match covers the whole token
+                if (degreeEnd < length && (text.charAt(degreeEnd) == 'C' || text.charAt(degreeEnd) == 'c')) degreeEnd++;
+                return new Match(text, start, degreeEnd, value, Form.DEGREE);
+            }
+            if (bareC != null) continue;
+            if (unit < length && text.charAt(unit) == 'C' && (unit + 1 >= length || !isLetterOrDigit(text.charAt(unit + 1)))) {
+                bareC = new Match(text, start, unit + 1, value, Form.BARE_C);
+            } else if (tagged == null && !negative && digitStart > 0 && text.charAt(digitStart - 1) == '>'
+                    && tagMentionsTemp(text, digitStart - 1)) {
+                tagged = new Match(text, start, numberEnd, value, Form.TAGGED);
+            } else if (includePlain && plain == null) {
+                plain = new Match(text, start, numberEnd, value, Form.PLAIN);
+            }
+        }
+        if (bareC != null) return bareC;
+        return tagged != null ? tagged : plain;
+    }
+
+    // A number starts at a digit that does not continue a number, identifier or hex colour
+    private static boolean startsNumber(CharSequence text, int i) {
+        if (i == 0) return true;
+        char prev = text.charAt(i - 1);
+        return !isLetterOrDigit(prev) && prev != '.' && prev != '#' && prev != '_';
+    }
+
+    // Skips whitespace, NBSP, &nbsp; and a stray \u00C2 (UTF-8 NBSP/degree read as Latin-1)
+    private static int skipSeparators(CharSequence text, int i) {
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\u00A0' || c == '\u202F' || c == '\u00C2') {
+                i++;
+            } else if (c == '&' && regionMatches(text, i, "&nbsp;")) {
+                i += 6;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    // End index of a degree marker at i, or -1
+    private static int matchDegree(CharSequence text, int i) {
+        if (i >= text.length()) return -1;
+        char c = text.charAt(i);
+        // Degree sign, the masculine ordinal often typed in its place, and the single-char Celsius sign
+        if (c == '\u00B0' || c == '\u00BA' || c == '\u2103') return i + 1;
+        if (c == '&') {
+            if (regionMatches(text, i, "&deg;")) return i + 5;
+            if (regionMatches(text, i, "&#176;")) return i + 6;
+            if (regionMatches(text, i, "&#xB0;") || regionMatches(text, i, "&#xb0;")) return i + 6;
+        }
+        return -1;
+    }
+
+    // Looks back from the '>' at gt to its '<' for "temp" inside the tag, case-insensitively
+    private static boolean tagMentionsTemp(CharSequence text, int gt) {
+        int floor = Math.max(0, gt - MAX_TAG_LENGTH);
+        for (int i = gt - 1; i >= floor; i--) {
+            char c = text.charAt(i);
+            if (c == '<') return false;
+            if ((c == 'p' || c == 'P') && i >= 3
+                    && lower(text.charAt(i - 3)) == 't' && lower(text.charAt(i - 2)) == 'e' && lower(text.charAt(i - 1)) == 'm') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String token) {
+        if (offset + token.length() > text.length()) return false;
+        for (int k = 0; k < token.length(); k++) {
+            if (text.charAt(offset + k) != token.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static double toDouble(long mantissa, int scale, boolean negative) {
+        double value = scale >= 0 ? mantissa / Math.pow(10, scale) : mantissa * Math.pow(10, -scale);
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isMinus(char c) {
+        return c == '-' || c == '\u2212';
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+    /** A temperature found in the scanned text; the matched characters are only copied on {@link #getText()}. */
+    public static final class Match {
+        private final CharSequence source;
+        private final int start;
+        private final int end;
+        private final double value;
+        private final Form form;
+
+        Match(CharSequence source, int start, int end, double value, Form form) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.form = form;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public Form getForm() {
+            return form;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getText() {
+            return source.subSequence(start, end).toString();
+        }
+
+        @Override
+        public String toString() {
+            return value + " (" + form + " at " + start + ")";
+        }
+    }
+}
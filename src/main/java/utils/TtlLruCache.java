@@ -0,0 +1,178 @@
+package utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache with a per-entry time-to-live, least-recently-used eviction and single-flight
+ * loading: concurrent misses for the same key share one in-flight load instead of each calling
+ * the loader. Failed loads are never cached.
+ */
+public class TtlLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<K, CachedValue<V>> entries;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public TtlLruCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    public TtlLruCache(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be at least 1, was " + maxEntries);
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive, was " + ttl);
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() <= TtlLruCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    // Blocking lookup; loader exceptions are rethrown unwrapped
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        try {
+            return getAsync(key, k -> CompletableFuture.completedFuture(loader.apply(k))).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        // Another caller may have finished loading between our lookup and claiming the slot
+        cached = getIfPresent(key);
+        if (cached != null) {
+            inFlight.remove(key, promise);
+            promise.complete(cached);
+            return promise;
+        }
+
+        misses.increment();
+        CompletableFuture<? extends V> load;
+        try {
+            load = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(e);
+            return promise;
+        }
+        load.whenComplete((value, error) -> {
+            if (error == null && value != null) put(key, value);
+            inFlight.remove(key, promise);
+            if (error != null) {
+                promise.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                promise.complete(value);
+            }
+        });
+        return promise;
+    }
+
+    // Counts as a hit when a live entry is found; expired entries are dropped on the spot
+    public V getIfPresent(K key) {
+        long now = nanoClock.getAsLong();
+        synchronized (entries) {
+            CachedValue<V> entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.storedAt < ttlNanos) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+        }
+        return null;
+    }
+
+    public void put(K key, V value) {
+        CachedValue<V> entry = new CachedValue<>(value, nanoClock.getAsLong());
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    // Loads actually started; coalesced waiters are counted separately
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "TtlLruCache{size=" + size() + "/" + maxEntries + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", coalesced=" + getCoalescedCount() + ", evictions=" + getEvictionCount()
+                + ", expirations=" + getExpirationCount() + "}";
+    }
+
+    private static final class CachedValue<V> {
+        final V value;
+        final long storedAt;
+
+        CachedValue(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+}
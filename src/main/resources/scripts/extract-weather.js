@@ -0,0 +1,91 @@
+// Single-roundtrip weather extraction, run through JavascriptExecutor.executeScript.
+// Mirrors the DOM fallbacks in WeatherPage.getTemperature()/getCondition(), but evaluates every
+// candidate selector, normalization and keyword filter in the page and returns one small object.
+//
+// arguments[0] temperature candidates as [strategy, expression] pairs, in priority order
+// arguments[1] condition container CSS selectors, in priority order
+// arguments[2] condition candidate selector   arguments[3] promo tokens   arguments[4] weather keywords
+var tempCandidates = arguments[0], containers = arguments[1], candidateSel = arguments[2];
+var promoTokens = arguments[3], weatherKeywords = arguments[4];
+var DEG = '\u00b0';
+
+function visible(el) {
+    return el && el.getClientRects().length > 0;
+}
+
+function text(el) {
+    return (el.innerText || el.textContent || '').trim();
+}
+
+function normalize(raw) {
+    return raw.split('\u00a0').join(' ').split('\u00c2').join('').split('&deg;').join('').trim();
+}
+
+function containsAny(lower, tokens) {
+    for (var i = 0; i < tokens.length; i++) {
+        if (lower.indexOf(tokens[i]) >= 0) return true;
+    }
+    return false;
+}
+
+function query(candidate) {
+    if (candidate[0] === 'css selector') return document.querySelectorAll(candidate[1]);
+    var nodes = [];
+    var snapshot = document.evaluate(candidate[1], document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+    for (var k = 0; k < snapshot.snapshotLength; k++) nodes.push(snapshot.snapshotItem(k));
+    return nodes;
+}
+
+var result = { temperature: null, temperatureIndex: -1, condition: null, conditionIndex: -1, skipped: 0 };
+
+// Temperature: first visible element, in candidate priority order, whose text contains a digit.
+// Expressions the browser rejects (e.g. XPath 2.0 matches()) are skipped.
+function findTemperature() {
+    for (var i = 0; i < tempCandidates.length; i++) {
+        var els;
+        try {
+            els = query(tempCandidates[i]);
+        } catch (e) {
+            continue;
+        }
+        for (var j = 0; j < els.length; j++) {
+            var t = text(els[j]);
+            if (visible(els[j]) && /\d/.test(t)) {
+                result.temperature = t;
+                result.temperatureIndex = i;
+                return;
+            }
+        }
+    }
+}
+
+// Condition: first scoped candidate that is not numeric or promotional and contains a weather keyword
+function findCondition() {
+    for (var i = 0; i < containers.length; i++) {
+        var scopes = document.querySelectorAll(containers[i]);
+        for (var j = 0; j < scopes.length; j++) {
+            var candidates = scopes[j].querySelectorAll(candidateSel);
+            for (var k = 0; k < candidates.length; k++) {
+                var norm = normalize(text(candidates[k]));
+                var lower = norm.toLowerCase();
+                if (/\d/.test(lower) || lower.indexOf(DEG) >= 0 || containsAny(lower, promoTokens)) {
+                    result.skipped++;
+                    continue;
+                }
+                if (containsAny(lower, weatherKeywords)) {
+                    var first = norm.split(/\r?\n/)[0].split('.')[0].trim();
+                    if (first.length >= 3 && first.length < 120) {
+                        result.condition = first;
+                        result.conditionIndex = i;
+                        return;
+                    }
+                }
+                result.skipped++;
+            }
+        }
+    }
+}
+
+findTemperature();
+findCondition();
+return result;
@@ -0,0 +1,23 @@
+// Reads the search suggestion dropdown in one roundtrip for WeatherPage.searchCity.
+// Returns the visible items of the first selector that has any, so Java can pick the exact
+// match (see SuggestionMatcher) without a getText() call per element.
+//
+// arguments[0] suggestion item CSS selectors, in priority order
+// returns {selectorIndex, elements, labels, cityIds} or null when no list is showing
+var selectors = arguments[0];
+
+for (var s = 0; s < selectors.length; s++) {
+    var nodes = document.querySelectorAll(selectors[s]);
+    var elements = [], labels = [], cityIds = [];
+    for (var i = 0; i < nodes.length; i++) {
+        var node = nodes[i];
+        if (node.getClientRects().length === 0) continue;
+        elements.push(node);
+        labels.push((node.innerText || node.textContent || '').trim());
+        cityIds.push(node.getAttribute('data-city-id'));
+    }
+    if (elements.length > 0) {
+        return {selectorIndex: s, elements: elements, labels: labels, cityIds: cityIds};
+    }
+}
+return null;
@@ -1,16 +1,328 @@
 package tests;
 
+import api.CachedWeatherApiClient;
+import api.CircuitBreaker;
+import api.CircuitOpenException;
+import api.ResiliencePolicy;
+import api.TokenBucket;
+import api.WeatherApiClient;
+import api.WeatherApiException;
+import comparison.ComparisonPipeline;
+import comparison.ComparisonResult;
+import comparison.WeatherSample;
+import io.restassured.response.Response;
+import load.LoadTestReport;
+import load.LoadTestRunner;
+import model.WeatherData;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
+import stub.OpenWeatherStubServer;
+import utils.TtlLruCache;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ApiTests {
 
+    // API tests run against the in-process stub so they are deterministic and work offline
+    private OpenWeatherStubServer stub;
+    private WeatherApiClient apiClient;
+
+    @BeforeClass
+    public void startStub() {
+        stub = new OpenWeatherStubServer(0).start();
+        apiClient = new WeatherApiClient("test-key", stub.getApiBaseUrl(), 4);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStub() {
+        if (stub != null) stub.close();
+    }
+
     @Test
     public void testValidInput() {
-        // Test API response for valid input
+        Response response = apiClient.getWeatherByCity("Jakarta");
+
+        Assert.assertEquals(response.statusCode(), 200);
+        Assert.assertEquals(response.path("name"), "Jakarta");
+        Assert.assertNotNull(response.path("main.temp"));
+        Assert.assertNotNull(response.path("weather[0].main"));
     }
 
     @Test
     public void testInvalidInput() {
-        // Test API response for invalid input
+        Response response = apiClient.getWeatherByCity("InvalidCity123");
+
+        Assert.assertEquals(response.statusCode(), 404);
+        Assert.assertEquals(response.path("message"), "city not found");
+    }
+
+    @Test
+    public void testTypedLookupDecodesAllFields() {
+        WeatherData data = apiClient.getWeather("Jakarta");
+
+        Assert.assertEquals(data.getCityId(), 1642911);
+        Assert.assertEquals(data.getCityName(), "Jakarta");
+        Assert.assertEquals(data.getCountry(), "ID");
+        Assert.assertEquals(data.getTemperature(), 31.2, 0.001);
+        Assert.assertEquals(data.getHumidity(), 62);
+        Assert.assertEquals(data.getPressure(), 1009);
+        Assert.assertEquals(data.getWindSpeed(), 3.6, 0.001);
+        Assert.assertEquals(data.getCondition(), "Clouds");
+        Assert.assertEquals(data.getDescription(), "scattered clouds");
+    }
+
+    @Test
+    public void testTypedLookupRejectsUnknownCity() {
+        WeatherApiException error = Assert.expectThrows(WeatherApiException.class, () -> apiClient.getWeather("InvalidCity123"));
+        Assert.assertEquals(error.getStatusCode(), 404);
+    }
+
+    @Test
+    public void testBatchLookupKeepsCityOrder() {
+        Map<String, WeatherData> results = apiClient.getWeatherByCities(Arrays.asList("Tokyo", "London", "Jakarta", "London"));
+
+        Assert.assertEquals(results.keySet().toArray(), new String[]{"Tokyo", "London", "Jakarta"});
+        results.forEach((city, data) -> Assert.assertEquals(data.getCityName(), city));
+    }
+
+    @Test
+    public void testBatchLookupLeavesOutUnknownCity() {
+        Map<String, WeatherData> results = apiClient.getWeatherByCities(Arrays.asList("Tokyo", "InvalidCity123", "London"));
+
+        Assert.assertEquals(results.keySet().toArray(), new String[]{"Tokyo", "London"});
+    }
+
+    @Test
+    public void testConcurrentCachedLookupsShareOneRequest() {
+        try (OpenWeatherStubServer slow = new OpenWeatherStubServer(0).withLatency(300, 0).start()) {
+            CachedWeatherApiClient cached = new CachedWeatherApiClient(
+                    new WeatherApiClient("test-key", slow.getApiBaseUrl(), 6), 16, Duration.ofMinutes(10));
+
+            List<CompletableFuture<WeatherData>> lookups = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                lookups.add(cached.getWeatherAsync("Jakarta"));
+            }
+            lookups.forEach(lookup -> Assert.assertEquals(lookup.join().getCityName(), "Jakarta"));
+            cached.getWeather("jakarta");
+
+            Assert.assertEquals(slow.getRequestCount(), 1);
+            Assert.assertEquals(cached.getCache().getMissCount(), 1);
+            Assert.assertEquals(cached.getCache().getCoalescedCount(), 5);
+            Assert.assertEquals(cached.getCache().getHitCount(), 1);
+        }
+    }
+
+    @Test
+    public void testCacheExpiresAndEvictsLeastRecentlyUsed() {
+        AtomicLong clock = new AtomicLong();
+        TtlLruCache<String, String> cache = new TtlLruCache<>(2, Duration.ofSeconds(10), clock::get);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.getIfPresent("a");
+        cache.put("c", "C");
+
+        Assert.assertNull(cache.getIfPresent("b"), "least recently used entry should be evicted");
+        Assert.assertEquals(cache.getEvictionCount(), 1);
+
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        Assert.assertNull(cache.getIfPresent("a"), "entry past its TTL should expire");
+        Assert.assertEquals(cache.getExpirationCount(), 1);
+    }
+
+    @Test
+    public void testRateLimitedStubAnswers429() {
+        try (OpenWeatherStubServer throttled = new OpenWeatherStubServer(0).withRateLimit(1).start()) {
+            WeatherApiClient client = new WeatherApiClient("test-key", throttled.getApiBaseUrl(), 1);
+            int first = client.getWeatherByCity("Paris").statusCode();
+            int second = client.getWeatherByCity("Paris").statusCode();
+
+            Assert.assertEquals(first, 200);
+            Assert.assertEquals(second, 429);
+            Assert.assertEquals(throttled.getThrottledCount(), 1);
+        }
+    }
+
+    @Test
+    public void testLoadRunnerChargesQueueingToResponseTime() {
+        // 10 rps against a 150ms server with one worker: later requests wait behind earlier ones
+        try (OpenWeatherStubServer slow = new OpenWeatherStubServer(0).withLatency(150, 0).start()) {
+            LoadTestReport report = new LoadTestRunner(new WeatherApiClient("test-key", slow.getApiBaseUrl(), 1))
+                    .withModel(LoadTestRunner.Model.OPEN)
+                    .withTargetRps(10)
+                    .withConcurrency(1)
+                    .withDuration(Duration.ofSeconds(1))
+                    .withCities(Arrays.asList("Jakarta", "Paris", "InvalidCity123"))
+                    .run();
+
+            Assert.assertEquals(report.getCompleted(), 10);
+            Assert.assertEquals(report.getErrors().get("http 404"), Long.valueOf(3));
+            // Service time stays near the server latency; response time grows with the backlog
+            Assert.assertTrue(report.getResponseTime().percentileNanos(90) > 2 * report.getServiceTime().percentileNanos(50), report.toString());
+            Assert.assertTrue(report.getResponseTime().getMaxNanos() >= report.getServiceTime().getMaxNanos(), report.toString());
+        }
+    }
+
+    @Test
+    public void testTokenBucketQueuesCallsBeyondBurst() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 2, clock::get);
+
+        Assert.assertEquals(bucket.reserve(), 0);
+        Assert.assertEquals(bucket.reserve(), 0);
+        // Empty bucket: callers are lined up half a second apart at 2 permits per second
+        Assert.assertEquals(bucket.reserve(), Duration.ofMillis(500).toNanos());
+        Assert.assertEquals(bucket.reserve(), Duration.ofMillis(1000).toNanos());
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        Assert.assertEquals(bucket.getAvailableTokens(), 2.0, 0.001, "refill should stop at the burst size");
+    }
+
+    @Test
+    public void testCircuitBreakerOpensThenProbes() {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(30), clock::get);
+        breaker.onFailure();
+        breaker.onFailure();
+
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertFalse(breaker.tryAcquire());
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        Assert.assertTrue(breaker.tryAcquire(), "one probe should be let through after the open period");
+        Assert.assertFalse(breaker.tryAcquire(), "only one probe at a time");
+        breaker.onFailure();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testThrottledLookupIsRetriedAfterRetryAfter() {
+        try (OpenWeatherStubServer throttled = new OpenWeatherStubServer(0).withRateLimit(1).start()) {
+            ResiliencePolicy policy = new ResiliencePolicy().withRetries(2).withBackoff(Duration.ofMillis(50), Duration.ofSeconds(5));
+            WeatherApiClient client = new WeatherApiClient("test-key", throttled.getApiBaseUrl(), 1, policy);
+
+            Assert.assertEquals(client.getWeather("Paris").getCityName(), "Paris");
+            Assert.assertEquals(client.getWeather("Paris").getCityName(), "Paris");
+            Assert.assertEquals(throttled.getThrottledCount(), 1);
+            Assert.assertEquals(policy.getRejectedCount(), 1);
+            Assert.assertEquals(policy.getRetryCount(), 1);
+        }
+    }
+
+    @Test
+    public void testOpenCircuitFailsFastWithoutCallingUpstream() {
+        try (OpenWeatherStubServer failing = new OpenWeatherStubServer(0).withErrorRate(1.0).start()) {
+            ResiliencePolicy policy = new ResiliencePolicy()
+                    .withRetries(0)
+                    .withCircuitBreaker(new CircuitBreaker(2, Duration.ofMinutes(1)));
+            WeatherApiClient client = new WeatherApiClient("test-key", failing.getApiBaseUrl(), 1, policy);
+
+            for (int i = 0; i < 2; i++) {
+                Assert.assertEquals(Assert.expectThrows(WeatherApiException.class, () -> client.getWeather("Tokyo")).getStatusCode(), 500);
+            }
+            Assert.expectThrows(CircuitOpenException.class, () -> client.getWeather("Tokyo"));
+            Assert.assertEquals(failing.getRequestCount(), 2);
+            Assert.assertEquals(policy.getShortCircuitedCount(), 1);
+        }
+    }
+
+    @Test
+    public void testSlowResponseTimesOut() {
+        try (OpenWeatherStubServer slow = new OpenWeatherStubServer(0).withLatency(1000, 0).start()) {
+            ResiliencePolicy policy = new ResiliencePolicy().withRetries(0).withTimeout(Duration.ofMillis(200));
+            WeatherApiClient client = new WeatherApiClient("test-key", slow.getApiBaseUrl(), 1, policy);
+
+            long start = System.nanoTime();
+            Assert.expectThrows(UncheckedIOException.class, () -> client.getWeather("London"));
+            Assert.assertTrue(System.nanoTime() - start < Duration.ofMillis(900).toNanos(), "request should be cut off at the timeout");
+        }
+    }
+
+    @Test
+    public void testIdLookupSplitsIntoGroupRequests() {
+        List<Integer> ids = new ArrayList<>(Arrays.asList(1850147, 2643743, 1642911));
+        for (int unknown = 1; ids.size() < 25; unknown++) {
+            ids.add(unknown);
+        }
+        try (OpenWeatherStubServer group = new OpenWeatherStubServer(0).start()) {
+            WeatherApiClient client = new WeatherApiClient("test-key", group.getApiBaseUrl(), 4);
+            Map<Integer, WeatherData> results = client.getWeatherByIds(ids);
+
+            Assert.assertEquals(results.keySet().toArray(), new Integer[]{1850147, 2643743, 1642911});
+            Assert.assertEquals(results.get(2643743).getCityName(), "London");
+            Assert.assertEquals(group.getGroupRequestCount(), 2, "25 IDs should take two requests of at most 20");
+        }
+    }
+
+    @Test
+    public void testCitiesWithKnownIdsShareOneGroupRequest() {
+        List<String> cities = Arrays.asList("Jakarta", "London", "Paris", "Tokyo", "New York", "Singapore", "Sydney", "Moscow");
+        try (OpenWeatherStubServer first = new OpenWeatherStubServer(0).start();
+             OpenWeatherStubServer second = new OpenWeatherStubServer(0).start()) {
+            // The first sweep learns any IDs not yet known; the second needs no by-name lookups
+            new WeatherApiClient("test-key", first.getApiBaseUrl(), 4).getWeatherByCities(cities);
+            Map<String, WeatherData> results = new WeatherApiClient("test-key", second.getApiBaseUrl(), 4).getWeatherByCities(cities);
+
+            Assert.assertEquals(results.keySet().toArray(), cities.toArray());
+            results.forEach((city, data) -> Assert.assertEquals(data.getCityName(), city));
+            Assert.assertEquals(second.getRequestCount(), 1);
+            Assert.assertEquals(second.getGroupRequestCount(), 1);
+        }
+    }
+
+    @Test
+    public void testIndexedCityIsLookedUpById() {
+        WeatherData byId = apiClient.getWeatherById(2643743);
+        WeatherData byName = apiClient.getWeather("london, gb");
+
+        Assert.assertEquals(byId.getCityName(), "London");
+        Assert.assertEquals(byName.getCityId(), 2643743);
+        Assert.assertEquals(byName.getTemperature(), byId.getTemperature(), 0.001);
+    }
+
+    @Test
+    public void testComparisonSendsApiRequestAsUiSearches() {
+        // Own unthrottled client: the shared one may already have spent its burst on other tests
+        WeatherApiClient client = new WeatherApiClient("test-key", stub.getApiBaseUrl(), 1, new ResiliencePolicy());
+        ComparisonPipeline pipeline = new ComparisonPipeline(client, stub.getBaseUrl());
+        client.getWeather("Jakarta"); // warm the client so the skew below is not its first-request setup
+        AtomicLong searchSubmittedAt = new AtomicLong();
+
+        ComparisonResult result = pipeline.compare("Jakarta", searchStarting -> {
+            sleep(300); // page open and settle
+            Instant requestedAt = Instant.now();
+            searchSubmittedAt.set(requestedAt.toEpochMilli());
+            searchStarting.run();
+            sleep(100); // search round trip
+            return new WeatherSample(WeatherSample.Source.UI, 31.0, "Clouds", null, 0, requestedAt, Instant.now());
+        });
+
+        Assert.assertEquals(result.getApi().getTemperature(), 31.2, 0.001);
+        Assert.assertTrue(result.getApi().getRequestedAt().toEpochMilli() >= searchSubmittedAt.get(),
+                "API request went out before the UI searched: " + result);
+        Assert.assertTrue(result.getSkew().toMillis() < 250, "Skew too large: " + result);
+        Assert.assertTrue(result.getWallClock().toMillis() < 1000, "Comparison took too long: " + result);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
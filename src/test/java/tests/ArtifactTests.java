@@ -0,0 +1,126 @@
+package tests;
+
+import base.FailureArtifacts;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+public class ArtifactTests {
+
+    @Test
+    public void testFailureArtifactsAreCompressedOffTheTestThread() throws Exception {
+        Path directory = Files.createTempDirectory("artifacts");
+        FailureArtifacts artifacts = new FailureArtifacts(directory, 10L * 1024 * 1024, 64 * 1024, 0.7f, 1, 2);
+
+        Assert.assertTrue(artifacts.capture("ArtifactTests.page", fakeDriver("<html><body>failed</body></html>"),
+                Arrays.asList("condition: <span>Sunny</span>")));
+        Assert.assertTrue(artifacts.awaitIdle(Duration.ofSeconds(10)));
+
+        List<Path> folders = folders(directory);
+        Assert.assertEquals(folders.size(), 1);
+        Path folder = folders.get(0);
+        Assert.assertTrue(folder.getFileName().toString().endsWith("ArtifactTests.page"));
+        Assert.assertNotNull(ImageIO.read(folder.resolve("screenshot.jpg").toFile()), "screenshot should be a JPEG");
+        Assert.assertEquals(gunzip(folder.resolve("page-source.html.gz")), "<html><body>failed</body></html>");
+        Assert.assertTrue(gunzip(folder.resolve("diagnostics.txt.gz")).contains("<span>Sunny</span>"));
+    }
+
+    @Test
+    public void testOldestFailuresAreDeletedPastTheDiskCap() throws Exception {
+        Path directory = Files.createTempDirectory("artifacts");
+        // Each failure's page source compresses poorly on purpose, so three of them exceed the cap
+        String bulky = new Random(7).ints(40_000, 'a', 'z' + 1)
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();
+        FailureArtifacts artifacts = new FailureArtifacts(directory, 60 * 1024, 64 * 1024, 0.7f, 1, 2);
+
+        for (int i = 1; i <= 3; i++) {
+            artifacts.capture("ArtifactTests.failure" + i, fakeDriver(bulky), null);
+            Assert.assertTrue(artifacts.awaitIdle(Duration.ofSeconds(10)));
+        }
+
+        List<Path> folders = folders(directory);
+        Assert.assertEquals(folders.size(), 2);
+        Assert.assertTrue(folders.get(1).toString().endsWith("failure3"));
+        Assert.assertFalse(folders.stream().anyMatch(folder -> folder.toString().endsWith("failure1")));
+    }
+
+    @Test
+    public void testScreenshotThatIsNotAPngIsKeptAsIs() throws Exception {
+        Path directory = Files.createTempDirectory("artifacts");
+        FailureArtifacts artifacts = new FailureArtifacts(directory, 10L * 1024 * 1024, 64 * 1024, 0.7f, 1, 2);
+        byte[] notPng = "GIF89a not really".getBytes(StandardCharsets.US_ASCII);
+
+        Assert.assertTrue(artifacts.capture("ArtifactTests.raw", fakeDriver("<html></html>", notPng), null));
+        Assert.assertTrue(artifacts.awaitIdle(Duration.ofSeconds(10)));
+
+        Path folder = folders(directory).get(0);
+        Assert.assertFalse(Files.exists(folder.resolve("screenshot.jpg")));
+        Assert.assertEquals(Files.readAllBytes(folder.resolve("screenshot.png")), notPng);
+    }
+
+    private static WebDriver fakeDriver(String pageSource) throws IOException {
+        return fakeDriver(pageSource, png());
+    }
+
+    // Driver that only answers screenshot and page source; browser logs are unsupported, as on Firefox
+    private static WebDriver fakeDriver(String pageSource, byte[] screenshot) {
+        String png = Base64.getEncoder().encodeToString(screenshot);
+        return (WebDriver) Proxy.newProxyInstance(ArtifactTests.class.getClassLoader(),
+                new Class<?>[]{WebDriver.class, TakesScreenshot.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getPageSource":
+                            return pageSource;
+                        case "getScreenshotAs":
+                            return ((OutputType<?>) args[0]).convertFromBase64Png(png);
+                        case "toString":
+                            return "fake-driver";
+                        case "manage":
+                            throw new UnsupportedOperationException("no logs");
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(10, 10, 0xFF3366CC);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static List<Path> folders(Path directory) throws IOException {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tests;
+
+import base.BrowserFactory;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+public class BrowserTests {
+
+    @Test
+    public void testChromeOptionsAreHeadlessEagerAndSized() {
+        ChromeOptions options = new BrowserFactory().withHeadless(true).withWindowSize(800, 600).chromeOptions();
+
+        List<?> args = vendorOption(options, "goog:chromeOptions", "args");
+        Assert.assertTrue(args.contains("--headless=new"), "args=" + args);
+        Assert.assertTrue(args.contains("--window-size=800,600"), "args=" + args);
+        Assert.assertEquals(String.valueOf(options.getCapability("pageLoadStrategy")), "eager");
+        LoggingPreferences logging = (LoggingPreferences) options.getCapability(ChromeOptions.LOGGING_PREFS);
+        Assert.assertEquals(logging.getLevel(LogType.BROWSER), Level.ALL, "FailureArtifacts reads the console log");
+    }
+
+    @Test
+    public void testChromeOptionsHonourHeadedAndNormalLoading() {
+        ChromeOptions options = new BrowserFactory().withHeadless(false).withPageLoadStrategy(PageLoadStrategy.NORMAL).chromeOptions();
+
+        List<?> args = vendorOption(options, "goog:chromeOptions", "args");
+        Assert.assertFalse(args.contains("--headless=new"), "args=" + args);
+        Assert.assertEquals(String.valueOf(options.getCapability("pageLoadStrategy")), "normal");
+    }
+
+    @Test
+    public void testFirefoxOptionsTurnOffImagesAndFontsOnlyWhenBlocking() {
+        Capabilities blocking = new BrowserFactory().withBrowser(BrowserFactory.Browser.FIREFOX).withHeadless(true).firefoxOptions();
+        List<?> args = vendorOption(blocking, "moz:firefoxOptions", "args");
+        Map<?, ?> prefs = vendorOption(blocking, "moz:firefoxOptions", "prefs");
+        Assert.assertTrue(args.contains("-headless"), "args=" + args);
+        Assert.assertEquals(String.valueOf(blocking.getCapability("pageLoadStrategy")), "eager");
+        Assert.assertEquals(prefs.get("permissions.default.image"), 2);
+        Assert.assertEquals(prefs.get("browser.display.use_document_fonts"), 0);
+
+        Capabilities loadingAll = new BrowserFactory().withBrowser(BrowserFactory.Browser.FIREFOX)
+                .withBlockedUrls(Collections.emptyList()).firefoxOptions();
+        Map<?, ?> defaults = vendorOption(loadingAll, "moz:firefoxOptions", "prefs");
+        Assert.assertFalse(defaults != null && defaults.containsKey("permissions.default.image"), "prefs=" + defaults);
+    }
+
+    // A field of the browser-specific options block, e.g. goog:chromeOptions.args
+    @SuppressWarnings("unchecked")
+    private static <T> T vendorOption(Capabilities options, String vendorKey, String field) {
+        Map<String, Object> vendor = (Map<String, Object>) options.asMap().get(vendorKey);
+        return vendor == null ? null : (T) vendor.get(field);
+    }
+}
@@ -0,0 +1,294 @@
+package tests;
+
+import base.WeatherResponseCapture;
+import model.City;
+import model.WeatherData;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.Sleeper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import pages.LocatorRace;
+import pages.LocatorRegistry;
+import pages.LocatorStrategy;
+import pages.SuggestionMatcher;
+import utils.CityIndex;
+import utils.ConditionClassifier;
+import utils.Deadline;
+import utils.TemperatureScanner;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ExtractionTests {
+
+    @Test
+    public void testScannerRecognisesDegreeForms() {
+        Assert.assertEquals(TemperatureScanner.parse("31°C"), 31.0, 0.001);
+        Assert.assertEquals(TemperatureScanner.parse("Feels like -4.5 °"), -4.5, 0.001);
+        Assert.assertEquals(TemperatureScanner.parse("<span>12&deg;C</span>"), 12.0, 0.001);
+        Assert.assertEquals(TemperatureScanner.parse("7\u00A0°C"), 7.0, 0.001);
+        Assert.assertEquals(TemperatureScanner.parse("29Â°C"), 29.0, 0.001);
+        Assert.assertEquals(TemperatureScanner.parse("18 C"), 18.0, 0.001);
+    }
+
+    @Test
+    public void testScannerPrefersMarkedTemperatureOverEarlierNumbers() {
+        String source = "<div class='wind'>340° 3.6m/s</div><h2 id='h2'>Oct 18</h2>"
+                + "<div class='current-container'><span class='heading'>31°C</span></div>";
+        TemperatureScanner.Match match = TemperatureScanner.find(source);
+
+        Assert.assertNotNull(match);
+        Assert.assertEquals(match.getForm(), TemperatureScanner.Form.DEGREE);
+        Assert.assertEquals(match.getValue(), 31.0, 0.001);
+        Assert.assertEquals(match.getText(), "31°C");
+    }
+
+    @Test
+    public void testScannerIgnoresColoursWordsAndTagsWithoutTemperature() {
+        Assert.assertNull(TemperatureScanner.find("<p style='color:#1C1C1C'>5 Clouds</p><b>12</b>"));
+
+        TemperatureScanner.Match tagged = TemperatureScanner.find("<b>12</b><span class=\"temp-value\">24</span>");
+        Assert.assertNotNull(tagged);
+        Assert.assertEquals(tagged.getForm(), TemperatureScanner.Form.TAGGED);
+        Assert.assertEquals(tagged.getValue(), 24.0, 0.001);
+
+        Assert.assertTrue(Double.isNaN(TemperatureScanner.parse("no numbers here")));
+    }
+
+    @Test
+    public void testClassifierSeparatesConditionsPromosAndLabels() {
+        ConditionClassifier classifier = ConditionClassifier.DEFAULT;
+
+        ConditionClassifier.Classification condition = classifier.classify("Scattered Clouds");
+        Assert.assertTrue(condition.hasWeatherKeyword());
+        Assert.assertFalse(condition.isPromo());
+        Assert.assertFalse(condition.isLabel());
+        Assert.assertEquals(condition.getGroups(), Collections.singletonList("clouds"));
+
+        Assert.assertTrue(classifier.classify("Get started with our Professional collections").isPromo());
+        Assert.assertTrue(classifier.classify("  Humidity ").isLabel());
+        Assert.assertTrue(classifier.classify("Wind: 3.6m/s").isLabel());
+        Assert.assertFalse(classifier.classify("Wind chill tonight").isLabel());
+        Assert.assertFalse(classifier.classify("Light snow, temp falling").isLabel());
+        Assert.assertTrue(classifier.classify("31°C").hasDegreeSign());
+        Assert.assertTrue(classifier.classify("31°C").hasDigit());
+    }
+
+    @Test
+    public void testClassifierRelatesConditionsFromTheSameGroup() {
+        ConditionClassifier classifier = ConditionClassifier.DEFAULT;
+
+        Assert.assertTrue(classifier.areRelated("clouds", "overcast clouds"));
+        Assert.assertTrue(classifier.areRelated("Mist", "light\u00A0haze"));
+        Assert.assertTrue(classifier.areRelated("Clear", "SUNNY"));
+        Assert.assertFalse(classifier.areRelated("rain", "clear sky"));
+        Assert.assertFalse(classifier.areRelated("N/A", "clouds"));
+    }
+
+    @Test
+    public void testCityIndexResolvesNormalizedNamesAndPrefixes() {
+        CityIndex index = CityIndex.getDefault();
+
+        Assert.assertEquals(index.resolve("  sao   PAULO ").getId(), 3448439);
+        Assert.assertEquals(index.resolve("London").getCountry(), "GB", "a bare name resolves to the first listed city");
+        Assert.assertEquals(index.resolve("London, CA").getId(), 6058560);
+        Assert.assertNull(index.resolve("London, FR"));
+        Assert.assertNull(index.resolve("Lond"));
+        Assert.assertEquals(index.find("moscow").size(), 2);
+
+        List<String> prefixed = index.startingWith("lo", 10).stream().map(City::getLabel).collect(Collectors.toList());
+        Assert.assertEquals(prefixed, Arrays.asList("London, GB", "London, CA", "Los Angeles, US"));
+        Assert.assertTrue(index.startingWith("xyz", 10).isEmpty());
+    }
+
+    @Test
+    public void testSuggestionMatcherPicksOnlyTheExactCity() {
+        List<String> labels = Arrays.asList("Londonderry, GB", "London, CA", "London, GB 12\u00B0C");
+        List<String> noIds = Arrays.asList(null, null, null);
+        City london = CityIndex.getDefault().resolve("London");
+
+        Assert.assertEquals(SuggestionMatcher.choose(labels, noIds, "London", london), 2);
+        Assert.assertEquals(SuggestionMatcher.choose(labels, Arrays.asList(null, "6058560", null), "London,CA",
+                CityIndex.getDefault().resolve("London,CA")), 1);
+        // Not in the index: two Londons and no country means no safe choice
+        Assert.assertEquals(SuggestionMatcher.choose(labels, noIds, "London", null), -1);
+        Assert.assertEquals(SuggestionMatcher.choose(labels, noIds, "London, CA", null), 1);
+        Assert.assertEquals(SuggestionMatcher.choose(labels, noIds, "Lond", null), -1);
+    }
+
+    @Test
+    public void testLocatorsRankByWinRateThenMeanTimeThenDeclaredOrder() throws Exception {
+        Path dir = Files.createTempDirectory("locators");
+        Path file = dir.resolve("locator-stats.properties");
+        By a = By.cssSelector(".a"), b = By.cssSelector(".b"), c = By.cssSelector(".c"), d = By.cssSelector(".d"), e = By.cssSelector(".e");
+        LocatorRegistry registry = new LocatorRegistry(file);
+        LocatorStrategy strategy = registry.strategy("ranking", a, b, c, d, e);
+        Assert.assertEquals(strategy.ordered(), Arrays.asList(a, b, c, d, e), "No history keeps the declared order");
+
+        strategy.recordWin(Arrays.asList(b, c), c, 50_000_000L);
+        strategy.recordWin(Collections.singletonList(b), b, 5_000_000L);
+        strategy.recordWin(Collections.singletonList(d), d, 10_000_000L);
+
+        // d and c always won (d faster), b won half its tries, a and e never won and keep their declared order
+        List<By> expected = Arrays.asList(d, c, b, a, e);
+        Assert.assertEquals(strategy.ordered(), expected);
+
+        // The ranking survives a restart, and the atomic save leaves no temporary file behind
+        registry.save();
+        Assert.assertEquals(new LocatorRegistry(file).strategy("ranking", a, b, c, d, e).ordered(), expected);
+        try (Stream<Path> files = Files.list(dir)) {
+            Assert.assertEquals(files.map(path -> path.getFileName().toString()).collect(Collectors.toList()),
+                    Collections.singletonList("locator-stats.properties"));
+        }
+    }
+
+    @Test
+    public void testReadingsConvertToCelsiusFromTheRequestedUnits() {
+        Assert.assertEquals(WeatherData.toCelsius(27.15, "metric"), 27.15, 0.001);
+        Assert.assertEquals(WeatherData.toCelsius(80.87, "imperial"), 27.15, 0.001);
+        Assert.assertEquals(WeatherData.toCelsius(300.3, "standard"), 27.15, 0.001);
+        Assert.assertEquals(WeatherData.toCelsius(300.3, null), 27.15, 0.001, "OpenWeather defaults to kelvin");
+        Assert.expectThrows(IllegalArgumentException.class, () -> WeatherData.toCelsius(1, "nautical"));
+    }
+
+    @Test
+    public void testCapturedUnitsComeFromTheRequestUrl() {
+        Assert.assertEquals(WeatherResponseCapture.unitsOf("/data/2.5/weather?q=Jakarta&units=metric&appid=k"), "metric");
+        Assert.assertEquals(WeatherResponseCapture.unitsOf("https://host/data/2.5/weather?units=Imperial"), "imperial");
+        Assert.assertEquals(WeatherResponseCapture.unitsOf("/data/2.5/weather?id=1642911&appid=k"), "standard");
+        Assert.assertEquals(WeatherResponseCapture.unitsOf("/data/2.5/weather"), "standard");
+    }
+
+    @Test
+    public void testCaptureTakesOnlyWeatherReadings() throws Exception {
+        byte[] jakarta;
+        try (InputStream in = ExtractionTests.class.getResourceAsStream("/fixtures/weather/jakarta.json")) {
+            jakarta = in.readAllBytes();
+        }
+        String url = "/data/2.5/weather?q=Jakarta&units=imperial&appid=k";
+        WeatherResponseCapture capture = WeatherResponseCapture.detached("/data/2.5/weather");
+
+        Assert.assertFalse(capture.offer(url, "{\"cod\":\"404\",\"message\":\"city not found\"}".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertFalse(capture.offer(url, "{\"lat\":-6.2,\"current\":{\"temp\":300.1}}".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertFalse(capture.offer(url, "<html>not json</html>".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertNull(capture.await(Duration.ZERO));
+
+        Assert.assertTrue(capture.offer(url, jakarta));
+        WeatherData reading = capture.await(Duration.ZERO);
+        Assert.assertNotNull(reading);
+        Assert.assertEquals(reading.getCityName(), "Jakarta");
+        Assert.assertEquals(capture.getLatestUnits(), "imperial");
+        Assert.assertEquals(capture.getCapturedCount(), 1);
+
+        capture.clear();
+        Assert.assertNull(capture.await(Duration.ZERO));
+        Assert.assertNull(capture.getLatestUnits());
+        capture.close();
+    }
+
+    @Test
+    public void testDeadlineSlicesShareOneBudget() {
+        AtomicLong clock = new AtomicLong();
+        Deadline deadline = Deadline.after(Duration.ofSeconds(10), clock::get);
+        Assert.assertEquals(deadline.remaining(), Duration.ofSeconds(10));
+
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        Deadline slice = deadline.slice(0.5);
+        Assert.assertEquals(slice.remaining(), Duration.ofSeconds(3));
+        Assert.assertEquals(deadline.slice(2.0).remaining(), Duration.ofSeconds(6), "A slice never outlives its parent");
+
+        clock.addAndGet(Duration.ofSeconds(3).toNanos());
+        Assert.assertTrue(slice.isExpired());
+        Assert.assertFalse(deadline.isExpired());
+        Assert.assertEquals(deadline.remaining(), Duration.ofSeconds(3));
+
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        Assert.assertTrue(deadline.isExpired());
+        Assert.assertEquals(deadline.remaining(), Duration.ZERO);
+    }
+
+    @Test
+    public void testLocatorRaceWaitsForTheFirstHit() {
+        AtomicLong clock = new AtomicLong();
+        Sleeper sleeper = duration -> clock.addAndGet(duration.toNanos());
+        By first = By.cssSelector(".current-weather"), second = By.xpath("//*[contains(text(),'°C')]");
+        WebDriver driver = scriptedDriver(Arrays.asList(racePoll(-1, 2), racePoll(-1, 2), racePoll(1, 2)));
+
+        LocatorRace.Outcome outcome = new LocatorRace(driver, Duration.ofMillis(50), clock::get, sleeper)
+                .awaitPresent(Deadline.after(Duration.ofSeconds(1), clock::get), first, second);
+
+        Assert.assertTrue(outcome.isFound());
+        Assert.assertEquals(outcome.getWinner(), second);
+        Assert.assertEquals(outcome.getPolls(), 3);
+        Assert.assertEquals(outcome.getElapsed(), Duration.ofMillis(100));
+        Assert.assertEquals(outcome.getAttempts().get(0).getEvaluations(), 3);
+        Assert.assertTrue(outcome.getAttempts().get(1).isMatched());
+    }
+
+    @Test
+    public void testLocatorRaceGivesUpAtTheDeadline() {
+        AtomicLong clock = new AtomicLong();
+        Sleeper sleeper = duration -> clock.addAndGet(duration.toNanos());
+        WebDriver driver = scriptedDriver(Collections.nCopies(100, racePoll(-1, 1)));
+
+        LocatorRace.Outcome outcome = new LocatorRace(driver, Duration.ofMillis(50), clock::get, sleeper)
+                .awaitVisible(Deadline.after(Duration.ofSeconds(1), clock::get), By.cssSelector(".missing"));
+
+        Assert.assertFalse(outcome.isFound());
+        Assert.assertEquals(outcome.getElapsed(), Duration.ofSeconds(1));
+        Assert.assertEquals(outcome.getPolls(), 21, "One poll at the start and one per 50ms up to the deadline");
+    }
+
+    @Test
+    public void testInterruptedLocatorRaceStopsPolling() {
+        WebDriver driver = scriptedDriver(Collections.nCopies(1000, racePoll(-1, 1)));
+
+        Thread.currentThread().interrupt();
+        LocatorRace.Outcome outcome;
+        try {
+            outcome = new LocatorRace(driver, Duration.ofMillis(50))
+                    .awaitVisible(Deadline.after(Duration.ofSeconds(5)), By.cssSelector(".missing"));
+        } finally {
+            Assert.assertTrue(Thread.interrupted(), "The interrupt is kept for the caller");
+        }
+
+        Assert.assertFalse(outcome.isFound());
+        Assert.assertEquals(outcome.getPolls(), 1);
+        Assert.assertTrue(outcome.getElapsed().compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    // One RACE_JS answer: the winning candidate index (-1 for none) and a timing per evaluated candidate
+    private static Map<String, Object> racePoll(int index, int evaluated) {
+        Map<String, Object> poll = new HashMap<>();
+        poll.put("index", index);
+        poll.put("element", null);
+        poll.put("timings", Collections.nCopies(evaluated, 0.1));
+        poll.put("errors", Collections.emptyList());
+        return poll;
+    }
+
+    // A driver whose scripts answer with the given polls in turn; every other call is unsupported
+    private static WebDriver scriptedDriver(List<Map<String, Object>> polls) {
+        Iterator<Map<String, Object>> answers = polls.iterator();
+        return (WebDriver) Proxy.newProxyInstance(ExtractionTests.class.getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    if ("executeScript".equals(method.getName())) return answers.next();
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
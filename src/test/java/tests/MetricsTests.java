@@ -0,0 +1,106 @@
+package tests;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import metrics.LatencyHistogram;
+import metrics.MetricSet;
+import metrics.Metrics;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsTests {
+
+    @Test
+    public void testHistogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms, TimeUnit.MILLISECONDS);
+        }
+
+        LatencyHistogram.Summary summary = histogram.summarize();
+        Assert.assertEquals(summary.getCount(), 1000);
+        Assert.assertEquals(summary.getP50Millis(), 500, 500 * 0.07);
+        Assert.assertEquals(summary.getP95Millis(), 950, 950 * 0.07);
+        Assert.assertEquals(summary.getP99Millis(), 990, 990 * 0.07);
+        Assert.assertEquals(summary.getMaxMillis(), 1000, 0.001);
+        Assert.assertEquals(summary.getMeanMillis(), 500.5, 0.001);
+    }
+
+    @Test
+    public void testMergedHistogramsMatchRecordingEverythingInOne() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        LatencyHistogram all = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(20, TimeUnit.MILLISECONDS);
+            all.record(20, TimeUnit.MILLISECONDS);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(3, TimeUnit.SECONDS);
+            all.record(3, TimeUnit.SECONDS);
+        }
+
+        fast.merge(slow);
+        Assert.assertEquals(fast.getCount(), 100);
+        Assert.assertEquals(fast.percentileNanos(50), all.percentileNanos(50));
+        Assert.assertEquals(fast.percentileNanos(95), all.percentileNanos(95));
+        Assert.assertEquals(fast.getMaxNanos(), TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test
+    public void testScopeOnlySeesItsOwnThreadsSamples() throws Exception {
+        // A phase name of its own keeps these samples apart from real ones in the run summary
+        String phase = "metrics.selftest";
+        Metrics.openScope();
+        Metrics.record(phase, TimeUnit.MILLISECONDS.toNanos(40));
+        Thread other = new Thread(() -> Metrics.record(phase, TimeUnit.MILLISECONDS.toNanos(900)));
+        other.start();
+        other.join();
+        MetricSet scope = Metrics.closeScope();
+
+        Assert.assertEquals(scope.getPhase(phase).getCount(), 1);
+        Assert.assertTrue(Metrics.run().getPhase(phase).getCount() >= 2);
+        Assert.assertTrue(scope.toJson().contains("\"" + phase + "\""));
+    }
+
+    @Test
+    public void testShardSummariesMergeIntoTheSamePercentiles() throws Exception {
+        MetricSet shardA = new MetricSet();
+        MetricSet shardB = new MetricSet();
+        MetricSet whole = new MetricSet();
+        for (int ms = 1; ms <= 400; ms++) {
+            MetricSet shard = ms % 2 == 0 ? shardA : shardB;
+            shard.record("comparison", TimeUnit.MILLISECONDS.toNanos(ms));
+            whole.record("comparison", TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+        shardA.recordLocator("By.id: search", TimeUnit.MILLISECONDS.toNanos(30), true);
+        shardB.increment("api.retried");
+
+        MetricSet merged = new MetricSet();
+        for (MetricSet shard : new MetricSet[]{shardA, shardB}) {
+            StringWriter out = new StringWriter();
+            try (JsonGenerator json = new JsonFactory().createGenerator(out)) {
+                json.writeStartObject();
+                shard.writeJson(json, true);
+                json.writeEndObject();
+            }
+            try (JsonParser parser = new JsonFactory().createParser(out.toString())) {
+                parser.nextToken();
+                merged.merge(MetricSet.readJson(parser));
+            }
+        }
+
+        LatencyHistogram expected = whole.getPhase("comparison");
+        LatencyHistogram actual = merged.getPhase("comparison");
+        Assert.assertEquals(actual.getCount(), 400);
+        Assert.assertEquals(actual.percentileNanos(95), expected.percentileNanos(95));
+        Assert.assertEquals(actual.getMaxNanos(), expected.getMaxNanos());
+        Assert.assertEquals(actual.getMeanNanos(), expected.getMeanNanos(), 0.001);
+        Assert.assertEquals(merged.getLocator("By.id: search").getHits(), 1);
+        Assert.assertEquals(merged.getCounter("api.retried"), 1);
+    }
+}
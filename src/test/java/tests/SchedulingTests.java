@@ -0,0 +1,74 @@
+package tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import scheduling.Shard;
+import scheduling.TestDurations;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class SchedulingTests {
+
+    @Test
+    public void testLongestFirstShortensMakespan() throws Exception {
+        TestDurations durations = new TestDurations(Files.createTempDirectory("durations").resolve("d.properties"), 1000);
+        durations.record("test:API Tests", 4000);
+        durations.record("test:Unit Tests", 3000);
+        durations.record("test:UI Tests", 3000);
+        durations.record("test:Integration Tests", 6000);
+        List<String> declared = Arrays.asList("API Tests", "Unit Tests", "UI Tests", "Integration Tests");
+
+        List<String> ordered = durations.longestFirst(declared, TestDurations::testKey);
+
+        Assert.assertEquals(ordered, Arrays.asList("Integration Tests", "API Tests", "Unit Tests", "UI Tests"));
+        // Declared order leaves the long comparison block last on two threads
+        Assert.assertEquals(TestDurations.makespan(Arrays.asList(4000L, 3000L, 3000L, 6000L), 2), 10000);
+        Assert.assertEquals(TestDurations.makespan(Arrays.asList(6000L, 4000L, 3000L, 3000L), 2), 9000);
+    }
+
+    @Test
+    public void testDurationsAreSmoothedAndSurviveARestart() throws Exception {
+        Path file = Files.createTempDirectory("durations").resolve("d.properties");
+        TestDurations durations = new TestDurations(file, 1000);
+        durations.record("WeatherComparisonTest.testWeatherDataConsistency", 10000);
+        durations.record("WeatherComparisonTest.testWeatherDataConsistency", 20000);
+        durations.save();
+
+        TestDurations reloaded = new TestDurations(file, 1000);
+        Assert.assertEquals(reloaded.predictMillis("WeatherComparisonTest.testWeatherDataConsistency"), 13000);
+        // Unknown tests are predicted at the mean of known tests, unknown blocks at the default
+        Assert.assertEquals(reloaded.predictMillis("UiTests.testSearch"), 13000);
+        Assert.assertEquals(reloaded.predictMillis("test:UI Tests"), 1000);
+    }
+
+    @Test
+    public void testShardsSplitTheMatrixExactlyOnceAndEvenly() {
+        List<String> cities = IntStream.range(0, 50).mapToObj(i -> "City " + i).collect(Collectors.toList());
+        List<String> covered = new ArrayList<>();
+        for (int index = 0; index < 4; index++) {
+            List<String> mine = new Shard(index, 4).select(cities, city -> city);
+            Assert.assertTrue(mine.size() == 12 || mine.size() == 13, "shard " + index + " got " + mine.size());
+            covered.addAll(mine);
+        }
+        Collections.sort(covered);
+        List<String> expected = new ArrayList<>(cities);
+        Collections.sort(expected);
+        Assert.assertEquals(covered, expected);
+
+        // Same partition whatever order the list arrives in
+        List<String> shuffled = new ArrayList<>(cities);
+        Collections.reverse(shuffled);
+        List<String> fromShuffled = new Shard(2, 4).select(shuffled, city -> city);
+        Collections.sort(fromShuffled);
+        List<String> fromDeclared = new ArrayList<>(new Shard(2, 4).select(cities, city -> city));
+        Collections.sort(fromDeclared);
+        Assert.assertEquals(fromShuffled, fromDeclared);
+    }
+}
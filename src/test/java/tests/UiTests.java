@@ -10,7 +10,7 @@ public class UiTests extends BaseTest {
     @Test(enabled = false)
     public void testInvalidCityErrorMessage() {
         // test ini sementara dinonaktifkan
-        WeatherPage weatherPage = new WeatherPage(driver);
+        WeatherPage weatherPage = new WeatherPage(getDriver());
         By errorMessageLocator = By.id("error-message");
 
         // Ensure the page is loaded and log the page source for debugging